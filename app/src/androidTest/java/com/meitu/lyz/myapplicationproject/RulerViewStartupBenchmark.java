@@ -0,0 +1,144 @@
+package com.meitu.lyz.myapplicationproject;
+
+import android.app.Activity;
+import android.content.res.XmlResourceParser;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.Xml;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import com.meitu.lyz.myapplicationproject.widget.RulerView;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xmlpull.v1.XmlPullParser;
+
+import java.util.Arrays;
+
+/**
+ * RulerView的启动耗时：从创建到第一次绘制完成，分别创建1、10、100个实例
+ * 属性取自activity_main.xml中的第一个RulerView，与RecyclerView中重复创建同一布局的情况一致：
+ * 通过LayoutInflater创建，并添加到已attach到窗口的父View中，第一个实例在整个测试期间保持attach，
+ * 之后的实例因此复用同一份共享资源，测量的是样式已缓存时的耗时
+ * <p>
+ * 结果输出到logcat（tag为RulerViewStartup），并通过instrumentation status上报，单位ns
+ */
+@RunWith(AndroidJUnit4.class)
+public class RulerViewStartupBenchmark {
+
+    private static final String TAG = "RulerViewStartup";
+    private static final int[] INSTANCES = {1, 10, 100};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @Rule
+    public final ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<>(MainActivity.class);
+
+    @Test
+    public void inflateToFirstDraw() throws Exception {
+        final Activity activity = mActivityRule.getActivity();
+        final XmlResourceParser parser = activity.getResources().getLayout(R.layout.activity_main);
+        final AttributeSet attrs = findRulerView(parser);
+        final Bundle results = new Bundle();
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+                LayoutInflater inflater = LayoutInflater.from(activity);
+                ViewGroup.LayoutParams matchParent = new ViewGroup.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+                //第一个实例所在的父View，测试期间一直保持attach
+                FrameLayout anchor = new FrameLayout(activity);
+                //每轮创建的实例所在的父View，每轮结束后移除
+                FrameLayout items = new FrameLayout(activity);
+                activity.addContentView(anchor, matchParent);
+                activity.addContentView(items, matchParent);
+
+                //进程内第一个实例，包括属性解析及共享资源的创建
+                long cold = inflateToFirstDraw(inflater, attrs, anchor, 1, canvas);
+                Log.i(TAG, "cold first instance: " + cold + " ns");
+                results.putLong("cold_first_instance_ns", cold);
+
+                for (int instances : INSTANCES) {
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                        inflateToFirstDraw(inflater, attrs, items, instances, canvas);
+                        items.removeAllViews();
+                    }
+
+                    long[] samples = new long[ROUNDS];
+                    for (int i = 0; i < ROUNDS; i++) {
+                        samples[i] = inflateToFirstDraw(inflater, attrs, items, instances, canvas);
+                        items.removeAllViews();
+                    }
+                    Arrays.sort(samples);
+                    long median = samples[ROUNDS / 2];
+
+                    Log.i(TAG, instances + " instances: median " + median + " ns, "
+                            + median / instances + " ns per instance");
+                    results.putLong("inflate_to_first_draw_ns_" + instances, median);
+                }
+            }
+        });
+        parser.close();
+
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    /**
+     * 通过LayoutInflater创建指定数量的RulerView，添加到已attach的父View中，并各自完成测量、布局及第一次绘制
+     *
+     * @return 总耗时，单位ns
+     */
+    private static long inflateToFirstDraw(LayoutInflater inflater, AttributeSet attrs, ViewGroup parent,
+                                           int instances, Canvas canvas) {
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.AT_MOST);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < instances; i++) {
+            View rulerView = inflate(inflater, attrs);
+            parent.addView(rulerView);
+            rulerView.measure(widthSpec, heightSpec);
+            rulerView.layout(0, 0, rulerView.getMeasuredWidth(), rulerView.getMeasuredHeight());
+            rulerView.draw(canvas);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 与LayoutInflater解析布局中的RulerView标签时相同，通过其缓存的构造方法创建
+     */
+    private static View inflate(LayoutInflater inflater, AttributeSet attrs) {
+        try {
+            return inflater.createView(RulerView.class.getName(), null, attrs);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 将解析器移动到第一个RulerView标签处，返回该标签的属性
+     */
+    private static AttributeSet findRulerView(XmlResourceParser parser) throws Exception {
+        int type;
+        while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+            if (type == XmlPullParser.START_TAG && RulerView.class.getName().equals(parser.getName()))
+                return Xml.asAttributeSet(parser);
+        }
+        throw new IllegalStateException("no RulerView in activity_main.xml");
+    }
+}
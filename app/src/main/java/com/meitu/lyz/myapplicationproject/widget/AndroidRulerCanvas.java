@@ -0,0 +1,51 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * 将{@link RulerCanvas}的绘制转发到Android的Canvas，每帧绘制前通过{@link #setCanvas(Canvas)}设置目标画布
+ */
+final class AndroidRulerCanvas implements RulerCanvas {
+
+    private Paint[] mPaints;
+    private Canvas mCanvas;
+
+    /**
+     * @param paints 按{@link RulerCanvas}中的画笔编号排列
+     */
+    AndroidRulerCanvas(Paint[] paints) {
+        mPaints = paints;
+    }
+
+    /**
+     * 切换为共享资源中的画笔
+     */
+    void setPaints(Paint[] paints) {
+        mPaints = paints;
+    }
+
+    void setCanvas(Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    @Override
+    public void setAlpha(int paint, int alpha) {
+        mPaints[paint].setAlpha(alpha);
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, int paint) {
+        mCanvas.drawLines(pts, offset, count, mPaints[paint]);
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, int paint) {
+        mCanvas.drawText(text, index, count, x, y, mPaints[paint]);
+    }
+
+    @Override
+    public float measureText(char[] text, int index, int count, int paint) {
+        return mPaints[paint].measureText(text, index, count);
+    }
+}
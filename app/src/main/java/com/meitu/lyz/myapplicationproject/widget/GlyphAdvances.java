@@ -0,0 +1,56 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+/**
+ * 一支文字画笔的字符前进宽度表，在画笔或单位改变时预先测量
+ * 刻度文字由数字、小数点、符号及单位组成，文字宽度由查表累加得到，绘制过程中不再调用measureText
+ * <p>
+ * 画笔开启等宽数字（tnum）时逐字累加与整串测量一致，否则为忽略字距调整的近似值，只用于判断文字是否重叠
+ */
+final class GlyphAdvances {
+
+    //预先测量的字符范围，覆盖格式化后刻度值中可能出现的所有字符
+    private static final char FIRST_CHAR = ' ';
+    private static final char LAST_CHAR = '~';
+
+    private final float[] mAdvances = new float[LAST_CHAR - FIRST_CHAR + 1];
+    private final char[] mGlyph = new char[1];
+    //表外字符按最宽的数字计算
+    private float mFallbackAdvance;
+    //单位整体测量，保留单位内部的字距
+    private float mUnitWidth;
+    private int mUnitLength;
+
+    /**
+     * 重新测量前进宽度表及单位的宽度
+     *
+     * @param paint 画笔编号
+     * @param unit  刻度单位
+     */
+    void update(RulerCanvas canvas, int paint, char[] unit) {
+        float widestDigit = 0;
+        for (char c = FIRST_CHAR; c <= LAST_CHAR; c++) {
+            mGlyph[0] = c;
+            float advance = canvas.measureText(mGlyph, 0, 1, paint);
+            mAdvances[c - FIRST_CHAR] = advance;
+            if (c >= '0' && c <= '9')
+                widestDigit = Math.max(widestDigit, advance);
+        }
+        mFallbackAdvance = widestDigit;
+        mUnitLength = unit.length;
+        mUnitWidth = mUnitLength == 0 ? 0 : canvas.measureText(unit, 0, mUnitLength, paint);
+    }
+
+    /**
+     * 计算以单位结尾的刻度文字的宽度
+     *
+     * @param length 包括单位在内的长度
+     */
+    float measure(char[] text, int length) {
+        float width = mUnitWidth;
+        for (int i = 0, n = length - mUnitLength; i < n; i++) {
+            char c = text[i];
+            width += c >= FIRST_CHAR && c <= LAST_CHAR ? mAdvances[c - FIRST_CHAR] : mFallbackAdvance;
+        }
+        return width;
+    }
+}
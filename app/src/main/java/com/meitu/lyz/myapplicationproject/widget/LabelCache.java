@@ -0,0 +1,150 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import com.meitu.lyz.myapplicationproject.widget.core.LinearScale;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+/**
+ * 刻度文字缓存，以刻度的单位值下标为key，缓存由{@link Scale}格式化后的char[]
+ * 绘制时配合 Canvas.drawText(char[], ...) 使用，稳定滑动时不产生任何新对象
+ * <p>
+ * 采用4路组相联的结构，组内按最近使用时间淘汰，容量固定
+ */
+final class LabelCache {
+
+    //每组的路数
+    private static final int WAYS = 4;
+
+    private final int mSetMask;
+
+    private final long[] mKeys;
+    //最近一次使用的时间戳，0表示该位置为空
+    private final long[] mLastUse;
+    private final char[][] mChars;
+    private final int[] mLengths;
+    private long mClock;
+
+    private Scale mScale = new LinearScale(0);
+    private char[] mUnit = new char[0];
+
+    /**
+     * @param capacity 最大缓存数，会向上取整为{@link #WAYS}的2的幂次倍
+     */
+    LabelCache(int capacity) {
+        int sets = 1;
+        while (sets * WAYS < capacity)
+            sets <<= 1;
+        mSetMask = sets - 1;
+
+        int size = sets * WAYS;
+        mKeys = new long[size];
+        mLastUse = new long[size];
+        mChars = new char[size][];
+        mLengths = new int[size];
+    }
+
+    /**
+     * 使用线性刻度的格式
+     *
+     * @param exponent 单位值的指数
+     * @param unit     刻度单位
+     */
+    void setFormat(int exponent, String unit) {
+        setFormat(new LinearScale(exponent), unit);
+    }
+
+    /**
+     * 设置格式化参数，参数改变时清空缓存
+     *
+     * @param scale 刻度值的换算及格式化方式
+     * @param unit  刻度单位
+     */
+    void setFormat(Scale scale, String unit) {
+        if (unit == null)
+            unit = "";
+        if (scale.equals(mScale) && sameUnit(unit))
+            return;
+
+        mScale = scale;
+        mUnit = unit.toCharArray();
+        int capacity = Scale.MAX_LABEL_CHARS + mUnit.length;
+        for (int i = 0; i < mChars.length; i++) {
+            if (mChars[i] != null && mChars[i].length < capacity)
+                mChars[i] = null;
+        }
+        clear();
+    }
+
+    /**
+     * 清空缓存，不释放已分配的字符数组
+     */
+    void clear() {
+        for (int i = 0; i < mLastUse.length; i++)
+            mLastUse[i] = 0;
+        mClock = 0;
+    }
+
+    /**
+     * 获取单位值下标对应文字所在的位置，未命中时格式化到被淘汰的位置中
+     *
+     * @return 位置，配合{@link #chars(int)}及{@link #length(int)}使用
+     */
+    int get(long unitIndex) {
+        int base = (int) (mix(unitIndex) & mSetMask) * WAYS;
+        int victim = base;
+        long clock = ++mClock;
+
+        for (int i = base; i < base + WAYS; i++) {
+            if (mLastUse[i] != 0 && mKeys[i] == unitIndex) {
+                mLastUse[i] = clock;
+                return i;
+            }
+            if (mLastUse[i] < mLastUse[victim])
+                victim = i;
+        }
+
+        char[] chars = mChars[victim];
+        if (chars == null) {
+            chars = new char[Scale.MAX_LABEL_CHARS + mUnit.length];
+            mChars[victim] = chars;
+        }
+        int length = mScale.format(unitIndex, chars);
+        System.arraycopy(mUnit, 0, chars, length, mUnit.length);
+
+        mKeys[victim] = unitIndex;
+        mLengths[victim] = length + mUnit.length;
+        mLastUse[victim] = clock;
+        return victim;
+    }
+
+    /**
+     * @return 当前的刻度单位，不可修改
+     */
+    char[] unit() {
+        return mUnit;
+    }
+
+    char[] chars(int slot) {
+        return mChars[slot];
+    }
+
+    int length(int slot) {
+        return mLengths[slot];
+    }
+
+    private boolean sameUnit(String unit) {
+        if (unit.length() != mUnit.length)
+            return false;
+        for (int i = 0; i < mUnit.length; i++) {
+            if (unit.charAt(i) != mUnit[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
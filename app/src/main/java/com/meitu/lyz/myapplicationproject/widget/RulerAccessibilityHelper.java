@@ -0,0 +1,168 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.view.View;
+import android.widget.SeekBar;
+
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+
+import java.util.List;
+
+/**
+ * RulerView的无障碍支持，只为当前可见的长刻度提供虚拟节点，节点数与数值范围的大小无关
+ * 虚拟节点的id由长刻度的序号得出，滑动后仍可见的刻度id不变，无障碍焦点不会跳到其它刻度上
+ * <p>
+ * 只在无障碍服务查询时计算，未开启无障碍服务时不增加绘制及滑动的开销
+ */
+final class RulerAccessibilityHelper extends ExploreByTouchHelper {
+
+    //id的取值范围，长刻度的序号对其取模，当前值附近2^30个长刻度内的id互不相同
+    private static final long ID_RANGE = Integer.MAX_VALUE;
+
+    private final RulerView mView;
+    private final RulerCore mCore;
+    private final Rect mBounds = new Rect();
+
+    RulerAccessibilityHelper(RulerView view, RulerCore core) {
+        super(view);
+        mView = view;
+        mCore = core;
+    }
+
+    @Override
+    protected int getVirtualViewAt(float x, float y) {
+        int interval = mCore.getValueInterval();
+        float offset = (mView.isHorizontal() ? x : y) - mCore.getCenterXY() + (float) mCore.getScrollXY();
+        //最近的刻度，再取最近的长刻度
+        long unitValue = mCore.getCurrentUnitValue() + Math.round(offset / mCore.getLineMargin());
+        unitValue = alignDown(unitValue + interval / 2, interval);
+        if (!mCore.isInRange(unitValue) || !isVisible(unitValue))
+            return INVALID_ID;
+        return idOf(unitValue);
+    }
+
+    @Override
+    protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+        int interval = mCore.getValueInterval();
+        long firstUnitValue = mCore.getFirstUnitValue();
+        long end = firstUnitValue + mCore.getVisibleEnd();
+        long unitValue = alignUp(firstUnitValue + mCore.getVisibleStart(), interval);
+        for (; unitValue < end; unitValue += interval) {
+            if (isVisible(unitValue))
+                virtualViewIds.add(idOf(unitValue));
+        }
+    }
+
+    @Override
+    protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+        long unitValue = unitValueOf(virtualViewId);
+        CharSequence label = mView.formatLabel(unitValue);
+        node.setText(label);
+        node.setContentDescription(label);
+        node.setSelected(unitValue == mCore.getCurrentUnitValue());
+        node.setClickable(true);
+        node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+
+        //滑出可见区域后仍可能被查询，此时边界为空
+        if (isVisible(unitValue))
+            getBounds(unitValue, mBounds);
+        else
+            mBounds.setEmpty();
+        node.setBoundsInParent(mBounds);
+    }
+
+    @Override
+    protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+        if (action != AccessibilityNodeInfoCompat.ACTION_CLICK)
+            return false;
+        mView.stepTo(unitValueOf(virtualViewId));
+        return true;
+    }
+
+    /**
+     * 以SeekBar的形式描述整个尺，并支持向前及向后滑动一个长刻度
+     */
+    @Override
+    protected void onPopulateNodeForHost(AccessibilityNodeInfoCompat node) {
+        node.setClassName(SeekBar.class.getName());
+        node.setContentDescription(mView.formatLabel(mCore.getCurrentUnitValue()));
+        node.setScrollable(true);
+        node.setRangeInfo(AccessibilityNodeInfoCompat.RangeInfoCompat.obtain(
+                AccessibilityNodeInfoCompat.RangeInfoCompat.RANGE_TYPE_FLOAT,
+                (float) mCore.getMinValue(), (float) mCore.getMaxValue(), (float) mCore.getCurrentValue()));
+        if (mCore.getCurrentUnitValue() < mCore.getMaxUnitValue())
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+        if (mCore.getCurrentUnitValue() > mCore.getMinUnitValue())
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+    }
+
+    @Override
+    public boolean performAccessibilityAction(View host, int action, Bundle args) {
+        switch (action) {
+            case AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD:
+                return mView.stepBy(mCore.getValueInterval());
+            case AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD:
+                return mView.stepBy(-mCore.getValueInterval());
+            default:
+                return super.performAccessibilityAction(host, action, args);
+        }
+    }
+
+    /**
+     * 刻度的坐标值，与绘制时的计算方式一致
+     */
+    private int xyOf(long unitValue) {
+        return (int) (mCore.getCenterXY() + (unitValue - mCore.getCurrentUnitValue()) * mCore.getLineMargin()
+                - mCore.getScrollXY());
+    }
+
+    private boolean isVisible(long unitValue) {
+        int xy = xyOf(unitValue);
+        return xy >= 0 && xy <= (mView.isHorizontal() ? mView.getWidth() : mView.getHeight())
+                && mCore.alphaAt(xy) > 0;
+    }
+
+    /**
+     * 以刻度为中心、一个长刻度间距为长度的区域，垂直方向上为整个View
+     */
+    private void getBounds(long unitValue, Rect outBounds) {
+        int xy = xyOf(unitValue);
+        int half = mCore.getValueInterval() * mCore.getLineMargin() / 2;
+        if (mView.isHorizontal())
+            outBounds.set(xy - half, 0, xy + half, mView.getHeight());
+        else
+            outBounds.set(0, xy - half, mView.getWidth(), xy + half);
+    }
+
+    private int idOf(long unitValue) {
+        long index = unitValue / mCore.getValueInterval() % ID_RANGE;
+        return (int) (index < 0 ? index + ID_RANGE : index);
+    }
+
+    /**
+     * 由id还原为离当前值最近的、序号与id同余的长刻度
+     */
+    private long unitValueOf(int virtualViewId) {
+        int interval = mCore.getValueInterval();
+        long currentIndex = mCore.getCurrentUnitValue() / interval;
+        long diff = (virtualViewId - currentIndex) % ID_RANGE;
+        if (diff > ID_RANGE / 2)
+            diff -= ID_RANGE;
+        else if (diff < -ID_RANGE / 2)
+            diff += ID_RANGE;
+        return (currentIndex + diff) * interval;
+    }
+
+    private static long alignDown(long unitValue, int interval) {
+        long remainder = unitValue % interval;
+        return remainder < 0 ? unitValue - remainder - interval : unitValue - remainder;
+    }
+
+    private static long alignUp(long unitValue, int interval) {
+        long aligned = alignDown(unitValue, interval);
+        return aligned == unitValue ? aligned : aligned + interval;
+    }
+}
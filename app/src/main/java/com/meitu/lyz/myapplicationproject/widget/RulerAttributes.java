@@ -0,0 +1,227 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+
+import com.meitu.lyz.myapplicationproject.R;
+import com.meitu.lyz.myapplicationproject.util.ConvertUtils;
+import com.meitu.lyz.myapplicationproject.widget.core.LinearScale;
+import com.meitu.lyz.myapplicationproject.widget.core.LogScale;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.FLING_SNAP_LINE;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.FLING_SNAP_NONE;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.LABEL_MODE_SIDE;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_LEFT;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_TOP;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.SCALE_TYPE_LOG;
+
+/**
+ * 解析后的RulerView属性，不可修改
+ * 以xml中的属性原值、主题、Configuration及屏幕密度为key缓存，同一布局重复创建（如RecyclerView的每一行）时
+ * 只在第一次调用obtainStyledAttributes解析，之后直接复用
+ */
+final class RulerAttributes {
+
+    //缓存的样式数，按最近使用淘汰
+    private static final int MAX_CACHED_STYLES = 16;
+    //刻度线及文字的默认颜色，#294383
+    private static final int DEFAULT_COLOR = 0xff294383;
+    //标记的默认颜色，#e64a19
+    private static final int DEFAULT_MARKER_COLOR = 0xffe64a19;
+    //未在xml中设置时各尺寸的默认值，单位dp及sp
+    private static final int DEFAULT_LINE_MARGIN = 8;
+    private static final int DEFAULT_TEXT_VALUE_MARGIN = 10;
+    private static final int DEFAULT_BOLD_WIDTH = 2;
+    private static final int DEFAULT_NORMAL_WIDTH = 1;
+    private static final int DEFAULT_MAX_LENGTH = 24;
+    private static final int DEFAULT_NORMAL_LENGTH = 12;
+    private static final int DEFAULT_LONG_LENGTH = 18;
+    private static final int DEFAULT_LARGE_TEXT_SIZE = 16;
+    private static final int DEFAULT_SMALL_TEXT_SIZE = 12;
+    //缩放时相邻刻度线的最小间距，单位dp
+    private static final int DEFAULT_MIN_TICK_SPACING = 4;
+    //缩放时刻度间距的默认上限为初始间距的倍数
+    private static final int DEFAULT_MAX_ZOOM = 4;
+    //数据分布的默认透明度，约20%
+    private static final int DEFAULT_DENSITY_ALPHA = 0x33000000;
+
+    private static final Map<StyleKey, RulerAttributes> sCache =
+            new LinkedHashMap<StyleKey, RulerAttributes>(MAX_CACHED_STYLES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<StyleKey, RulerAttributes> eldest) {
+                    return size() > MAX_CACHED_STYLES;
+                }
+            };
+
+    final boolean mIsHorizontal;
+    final String mUnit;
+    //刻度值的换算方式，不可变，可在多个实例间共享
+    final Scale mScale;
+    final int mValueInterval;
+    final int mTextInterval;
+    final float mMaxValue;
+    final float mMinValue;
+    final float mValue;
+
+    final int mLineColor;
+    final int mTextColor;
+    final int mLineMargin;
+    final int mTextValueMargin;
+    final int mBoldWidth;
+    final int mNormalWidth;
+    final int mMaxLength;
+    final int mNormalLength;
+    final int mLongLength;
+    final int mLargeTextSize;
+    final int mSmallTextSize;
+
+    final boolean mOpenCorrection;
+    final int mFlingSnap;
+    final boolean mTickCacheEnabled;
+    final int mLabelMode;
+    final int mRulerGravity;
+    final boolean mTouchPrediction;
+    final boolean mZoomEnabled;
+    final int mMinLineMargin;
+    final int mMaxLineMargin;
+    final int mMinTickSpacing;
+    final int mDensityColor;
+    final int mDensityHeight;
+    final int mMarkerColor;
+
+    /**
+     * 获取属性对应的解析结果，未缓存时解析
+     */
+    static RulerAttributes obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+        Resources.Theme theme = context.getTheme();
+        Configuration configuration = context.getResources().getConfiguration();
+        String values = valuesOf(context, attrs, defStyleAttr);
+        //查询时直接引用当前的Configuration，放入缓存时才复制
+        StyleKey key = new StyleKey(theme, configuration, values);
+        synchronized (sCache) {
+            RulerAttributes cached = sCache.get(key);
+            if (cached != null)
+                return cached;
+        }
+
+        RulerAttributes attributes = new RulerAttributes(context, attrs, defStyleAttr);
+        synchronized (sCache) {
+            sCache.put(new StyleKey(theme, new Configuration(configuration), values), attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * 属性原值及屏幕密度，与主题、Configuration一起决定解析结果
+     */
+    private static String valuesOf(Context context, AttributeSet attrs, int defStyleAttr) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        StringBuilder sb = new StringBuilder(128)
+                .append(metrics.density).append('/')
+                .append(metrics.scaledDensity).append('/')
+                .append(defStyleAttr);
+        if (attrs != null) {
+            sb.append('/').append(attrs.getStyleAttribute());
+            for (int i = 0, n = attrs.getAttributeCount(); i < n; i++) {
+                sb.append(';').append(attrs.getAttributeNameResource(i))
+                        .append('=').append(attrs.getAttributeValue(i));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 缓存的key，主题相同（同一实例）、Configuration相同且属性原值相同时解析结果必然相同
+     * 主题以弱引用持有，回收后的key不再与任何主题相等，由淘汰策略移除
+     * Configuration包括夜间模式、方向、语言及最小宽度等，资源限定符不同时@dimen、@color的取值可能不同
+     */
+    private static final class StyleKey {
+        private final WeakReference<Resources.Theme> mTheme;
+        private final Configuration mConfiguration;
+        private final String mValues;
+        private final int mHash;
+
+        StyleKey(Resources.Theme theme, Configuration configuration, String values) {
+            mTheme = new WeakReference<>(theme);
+            mConfiguration = configuration;
+            mValues = values;
+            mHash = (System.identityHashCode(theme) * 31 + configuration.hashCode()) * 31 + values.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof StyleKey))
+                return false;
+            StyleKey key = (StyleKey) o;
+            Resources.Theme theme = mTheme.get();
+            return theme != null && theme == key.mTheme.get()
+                    && mConfiguration.equals(key.mConfiguration) && mValues.equals(key.mValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+
+    private RulerAttributes(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.RulerView, defStyleAttr, 0);
+
+        mIsHorizontal = typedArray.getInt(R.styleable.RulerView_orientation, 0) == 0;
+        String unit = typedArray.getString(R.styleable.RulerView_unit);
+        mUnit = TextUtils.isEmpty(unit) ? "kg" : unit;
+        if (typedArray.getInt(R.styleable.RulerView_scaleType, RulerView.SCALE_TYPE_LINEAR) == SCALE_TYPE_LOG)
+            mScale = new LogScale(typedArray.getInt(R.styleable.RulerView_decadeTicks, 10), 3);
+        else
+            mScale = new LinearScale(typedArray.getInt(R.styleable.RulerView_unitValue, -1));
+        mValueInterval = typedArray.getInt(R.styleable.RulerView_valueInterval, 5);
+        mTextInterval = typedArray.getInt(R.styleable.RulerView_textInterval, 10);
+        mMaxValue = typedArray.getFloat(R.styleable.RulerView_maxValue, 100f);
+        mMinValue = typedArray.getFloat(R.styleable.RulerView_minValue, 0f);
+        mValue = typedArray.getFloat(R.styleable.RulerView_value, (mMaxValue + mMinValue) / 2);
+
+        mLineColor = typedArray.getColor(R.styleable.RulerView_lineColor, DEFAULT_COLOR);
+        mTextColor = typedArray.getColor(R.styleable.RulerView_textColor, DEFAULT_COLOR);
+
+        mLineMargin = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineMargin, ConvertUtils.dp2px(DEFAULT_LINE_MARGIN, context));
+        mTextValueMargin = typedArray.getDimensionPixelOffset(R.styleable.RulerView_textValueMargin, ConvertUtils.dp2px(DEFAULT_TEXT_VALUE_MARGIN, context));
+        mBoldWidth = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineBoldWidth, ConvertUtils.dp2px(DEFAULT_BOLD_WIDTH, context));
+        mNormalWidth = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineNormalWidth, ConvertUtils.dp2px(DEFAULT_NORMAL_WIDTH, context));
+
+        mMaxLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineMaxLength, ConvertUtils.dp2px(DEFAULT_MAX_LENGTH, context));
+        mNormalLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineNormalLength, ConvertUtils.dp2px(DEFAULT_NORMAL_LENGTH, context));
+        mLongLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineLongLength, ConvertUtils.dp2px(DEFAULT_LONG_LENGTH, context));
+
+        mLargeTextSize = typedArray.getDimensionPixelOffset(R.styleable.RulerView_largeTextSize, ConvertUtils.sp2px(DEFAULT_LARGE_TEXT_SIZE, context));
+        mSmallTextSize = typedArray.getDimensionPixelOffset(R.styleable.RulerView_smallTextSize, ConvertUtils.sp2px(DEFAULT_SMALL_TEXT_SIZE, context));
+
+        mOpenCorrection = typedArray.getBoolean(R.styleable.RulerView_openCorrection, true);
+        mFlingSnap = typedArray.getInt(R.styleable.RulerView_flingSnap, mOpenCorrection ? FLING_SNAP_LINE : FLING_SNAP_NONE);
+        mTickCacheEnabled = typedArray.getBoolean(R.styleable.RulerView_tickCache, false);
+        mLabelMode = typedArray.getInt(R.styleable.RulerView_labelMode, LABEL_MODE_SIDE);
+        mRulerGravity = typedArray.getInt(R.styleable.RulerView_rulerGravity, mIsHorizontal ? RULER_GRAVITY_TOP : RULER_GRAVITY_LEFT);
+        mTouchPrediction = typedArray.getBoolean(R.styleable.RulerView_touchPrediction, false);
+        mZoomEnabled = typedArray.getBoolean(R.styleable.RulerView_zoomEnabled, false);
+        mMinLineMargin = Math.max(1, typedArray.getDimensionPixelOffset(R.styleable.RulerView_minLineMargin, 1));
+        mMaxLineMargin = Math.max(mLineMargin, typedArray.getDimensionPixelOffset(R.styleable.RulerView_maxLineMargin, mLineMargin * DEFAULT_MAX_ZOOM));
+        mMinTickSpacing = ConvertUtils.dp2px(DEFAULT_MIN_TICK_SPACING, context);
+        //默认为半透明的刻度线颜色，高度与长刻度线一致
+        mDensityColor = typedArray.getColor(R.styleable.RulerView_densityColor, (mLineColor & 0x00ffffff) | DEFAULT_DENSITY_ALPHA);
+        mDensityHeight = typedArray.getDimensionPixelOffset(R.styleable.RulerView_densityHeight, mLongLength);
+        mMarkerColor = typedArray.getColor(R.styleable.RulerView_markerColor, DEFAULT_MARKER_COLOR);
+
+        typedArray.recycle();
+    }
+}
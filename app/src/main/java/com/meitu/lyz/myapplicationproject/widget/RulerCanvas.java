@@ -0,0 +1,37 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+/**
+ * 刻度尺绘制所需的最小画布接口，{@link RulerRenderer}只通过它进行绘制
+ * 正式环境由{@link AndroidRulerCanvas}转发到Android的Canvas，单元测试中可替换为记录绘制调用的实现
+ * <p>
+ * 画笔以编号表示，由实现方持有并预先配置，绘制过程中只会修改透明度
+ */
+interface RulerCanvas {
+
+    //刻度线、中间基准线、中间文字、两侧文字、数据分布及标记的画笔编号
+    int PAINT_LINE = 0;
+    int PAINT_BASE_LINE = 1;
+    int PAINT_CENTER_TEXT = 2;
+    int PAINT_SIDE_TEXT = 3;
+    int PAINT_DENSITY = 4;
+    int PAINT_MARKER = 5;
+
+    int PAINT_COUNT = 6;
+
+    /**
+     * @param alpha 透明度 [0-255]
+     */
+    void setAlpha(int paint, int alpha);
+
+    /**
+     * 绘制多条线段，每条线段占pts中的4个float
+     *
+     * @param offset 起始位置
+     * @param count  float的个数，为线段数的4倍
+     */
+    void drawLines(float[] pts, int offset, int count, int paint);
+
+    void drawText(char[] text, int index, int count, float x, float y, int paint);
+
+    float measureText(char[] text, int index, int count, int paint);
+}
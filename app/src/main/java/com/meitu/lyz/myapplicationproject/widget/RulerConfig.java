@@ -0,0 +1,91 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import com.meitu.lyz.myapplicationproject.widget.core.LinearScale;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+/**
+ * 通过{@link RulerView#bind(RulerConfig)}一次性应用到RulerView的数值配置
+ * 可修改并重复使用，如列表中每次绑定前只修改数值，绑定过程不产生新对象
+ * <p>
+ * 数值以刻度值设置，换算为单位值时使用{@link #setScale(Scale)}设置的换算方式
+ */
+public final class RulerConfig {
+
+    private Scale mScale = new LinearScale(-1);
+    private String mUnit = "kg";
+    private double mMinValue = 0;
+    private double mMaxValue = 100;
+    private double mValue = 50;
+    private int mValueInterval = 5;
+    private int mTextInterval = 10;
+
+    public Scale getScale() {
+        return mScale;
+    }
+
+    /**
+     * 刻度值的换算方式，应复用同一个实例以便RulerView共享缓存
+     */
+    public RulerConfig setScale(Scale scale) {
+        mScale = scale;
+        return this;
+    }
+
+    public String getUnit() {
+        return mUnit;
+    }
+
+    public RulerConfig setUnit(String unit) {
+        mUnit = unit;
+        return this;
+    }
+
+    public double getMinValue() {
+        return mMinValue;
+    }
+
+    public double getMaxValue() {
+        return mMaxValue;
+    }
+
+    /**
+     * @throws IllegalArgumentException minValue大于maxValue或为NaN时
+     */
+    public RulerConfig setRange(double minValue, double maxValue) {
+        if (!(minValue <= maxValue))
+            throw new IllegalArgumentException("invalid range: " + minValue + " - " + maxValue);
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        return this;
+    }
+
+    public double getValue() {
+        return mValue;
+    }
+
+    /**
+     * 超出数值范围时绑定后停在边界上
+     */
+    public RulerConfig setValue(double value) {
+        mValue = value;
+        return this;
+    }
+
+    public int getValueInterval() {
+        return mValueInterval;
+    }
+
+    public RulerConfig setValueInterval(int valueInterval) {
+        mValueInterval = valueInterval;
+        return this;
+    }
+
+    public int getTextInterval() {
+        return mTextInterval;
+    }
+
+    public RulerConfig setTextInterval(int textInterval) {
+        mTextInterval = textInterval;
+        return this;
+    }
+}
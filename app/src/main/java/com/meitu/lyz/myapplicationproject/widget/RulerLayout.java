@@ -0,0 +1,326 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_BOTTOM;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_LEFT;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_RIGHT;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_TOP;
+
+/**
+ * 尺在View中的布局策略，每种尺的位置对应一个实现
+ * 在方向或位置改变时选定一次，尺寸改变时预先计算好线的端点及文字的锚点，
+ * 绘制时只需调用对应的方法，不再逐条判断方向和位置
+ * <p>
+ * 坐标中的xy均指沿尺方向的坐标，即水平尺的x，垂直尺的y
+ */
+abstract class RulerLayout {
+
+    int mWidth;
+    int mHeight;
+    int mMaxLength;
+    int mTextValueMargin;
+    int mLargeTextSize;
+    int mSmallTextSize;
+
+    /**
+     * 根据方向及位置选择布局，水平尺只能为TOP|BOTTOM，垂直尺只能为LEFT|RIGHT，其它组合取默认位置
+     */
+    static RulerLayout of(boolean isHorizontal, int rulerGravity) {
+        if (isHorizontal)
+            return rulerGravity == RULER_GRAVITY_BOTTOM ? new Bottom() : new Top();
+        else
+            return rulerGravity == RULER_GRAVITY_RIGHT ? new Right() : new Left();
+    }
+
+    /**
+     * 更新尺寸参数并重新计算锚点
+     */
+    final void update(int width, int height, int maxLength, int textValueMargin, int largeTextSize, int smallTextSize) {
+        mWidth = width;
+        mHeight = height;
+        mMaxLength = maxLength;
+        mTextValueMargin = textValueMargin;
+        mLargeTextSize = largeTextSize;
+        mSmallTextSize = smallTextSize;
+        onUpdate();
+    }
+
+    abstract void onUpdate();
+
+    abstract int getRulerGravity();
+
+    abstract boolean isHorizontal();
+
+    abstract Paint.Align getTextAlign();
+
+    /**
+     * 将一条从尺的边缘开始、长度为length的线写入顶点数组
+     *
+     * @param index 在数组中的起始位置，占4个float
+     */
+    final void putLine(float[] pts, int index, float xy, float length) {
+        putSpan(pts, index, xy, 0, length);
+    }
+
+    /**
+     * 将一条垂直于尺、距尺的边缘从start到end的线写入顶点数组
+     *
+     * @param index 在数组中的起始位置，占4个float
+     */
+    abstract void putSpan(float[] pts, int index, float xy, float start, float end);
+
+    abstract float centerTextX(int centerXY);
+
+    abstract float centerTextY(int centerXY);
+
+    abstract float sideTextX(int xy);
+
+    abstract float sideTextY(int xy);
+
+    /**
+     * 计算刻度线所在的区域
+     *
+     * @param depth 刻度线的最大长度
+     */
+    abstract void getRulerBand(int depth, Rect out);
+
+    static final class Top extends RulerLayout {
+        private float mCenterTextY;
+        private float mSideTextY;
+
+        @Override
+        void onUpdate() {
+            mCenterTextY = mMaxLength + mTextValueMargin + mLargeTextSize;
+            mSideTextY = mMaxLength + mTextValueMargin + mSmallTextSize;
+        }
+
+        @Override
+        int getRulerGravity() {
+            return RULER_GRAVITY_TOP;
+        }
+
+        @Override
+        boolean isHorizontal() {
+            return true;
+        }
+
+        @Override
+        Paint.Align getTextAlign() {
+            return Paint.Align.CENTER;
+        }
+
+        @Override
+        void putSpan(float[] pts, int index, float xy, float start, float end) {
+            pts[index] = xy;
+            pts[index + 1] = start;
+            pts[index + 2] = xy;
+            pts[index + 3] = end;
+        }
+
+        @Override
+        float centerTextX(int centerXY) {
+            return centerXY;
+        }
+
+        @Override
+        float centerTextY(int centerXY) {
+            return mCenterTextY;
+        }
+
+        @Override
+        float sideTextX(int xy) {
+            return xy;
+        }
+
+        @Override
+        float sideTextY(int xy) {
+            return mSideTextY;
+        }
+
+        @Override
+        void getRulerBand(int depth, Rect out) {
+            out.set(0, 0, mWidth, depth);
+        }
+    }
+
+    static final class Bottom extends RulerLayout {
+        private float mTextY;
+
+        @Override
+        void onUpdate() {
+            mTextY = mHeight - (mMaxLength + mTextValueMargin);
+        }
+
+        @Override
+        int getRulerGravity() {
+            return RULER_GRAVITY_BOTTOM;
+        }
+
+        @Override
+        boolean isHorizontal() {
+            return true;
+        }
+
+        @Override
+        Paint.Align getTextAlign() {
+            return Paint.Align.CENTER;
+        }
+
+        @Override
+        void putSpan(float[] pts, int index, float xy, float start, float end) {
+            pts[index] = xy;
+            pts[index + 1] = mHeight - start;
+            pts[index + 2] = xy;
+            pts[index + 3] = mHeight - end;
+        }
+
+        @Override
+        float centerTextX(int centerXY) {
+            return centerXY;
+        }
+
+        @Override
+        float centerTextY(int centerXY) {
+            return mTextY;
+        }
+
+        @Override
+        float sideTextX(int xy) {
+            return xy;
+        }
+
+        @Override
+        float sideTextY(int xy) {
+            return mTextY;
+        }
+
+        @Override
+        void getRulerBand(int depth, Rect out) {
+            out.set(0, mHeight - depth, mWidth, mHeight);
+        }
+    }
+
+    static final class Left extends RulerLayout {
+        private float mTextX;
+        private float mCenterTextOffset;
+        private float mSideTextOffset;
+
+        @Override
+        void onUpdate() {
+            mTextX = mMaxLength + mTextValueMargin + mSmallTextSize;
+            mCenterTextOffset = mLargeTextSize / 2f;
+            mSideTextOffset = mSmallTextSize / 2f;
+        }
+
+        @Override
+        int getRulerGravity() {
+            return RULER_GRAVITY_LEFT;
+        }
+
+        @Override
+        boolean isHorizontal() {
+            return false;
+        }
+
+        @Override
+        Paint.Align getTextAlign() {
+            return Paint.Align.LEFT;
+        }
+
+        @Override
+        void putSpan(float[] pts, int index, float xy, float start, float end) {
+            pts[index] = start;
+            pts[index + 1] = xy;
+            pts[index + 2] = end;
+            pts[index + 3] = xy;
+        }
+
+        @Override
+        float centerTextX(int centerXY) {
+            return mTextX;
+        }
+
+        @Override
+        float centerTextY(int centerXY) {
+            return centerXY + mCenterTextOffset;
+        }
+
+        @Override
+        float sideTextX(int xy) {
+            return mTextX;
+        }
+
+        @Override
+        float sideTextY(int xy) {
+            return xy + mSideTextOffset;
+        }
+
+        @Override
+        void getRulerBand(int depth, Rect out) {
+            out.set(0, 0, depth, mHeight);
+        }
+    }
+
+    static final class Right extends RulerLayout {
+        private float mTextX;
+        private float mCenterTextOffset;
+        private float mSideTextOffset;
+
+        @Override
+        void onUpdate() {
+            mTextX = mWidth - (mMaxLength + mTextValueMargin);
+            mCenterTextOffset = mLargeTextSize / 2f;
+            mSideTextOffset = mSmallTextSize / 2f;
+        }
+
+        @Override
+        int getRulerGravity() {
+            return RULER_GRAVITY_RIGHT;
+        }
+
+        @Override
+        boolean isHorizontal() {
+            return false;
+        }
+
+        @Override
+        Paint.Align getTextAlign() {
+            return Paint.Align.RIGHT;
+        }
+
+        @Override
+        void putSpan(float[] pts, int index, float xy, float start, float end) {
+            pts[index] = mWidth - start;
+            pts[index + 1] = xy;
+            pts[index + 2] = mWidth - end;
+            pts[index + 3] = xy;
+        }
+
+        @Override
+        float centerTextX(int centerXY) {
+            return mTextX;
+        }
+
+        @Override
+        float centerTextY(int centerXY) {
+            return centerXY + mCenterTextOffset;
+        }
+
+        @Override
+        float sideTextX(int xy) {
+            return mTextX;
+        }
+
+        @Override
+        float sideTextY(int xy) {
+            return xy + mSideTextOffset;
+        }
+
+        @Override
+        void getRulerBand(int depth, Rect out) {
+            out.set(mWidth - depth, 0, mWidth, mHeight);
+        }
+    }
+}
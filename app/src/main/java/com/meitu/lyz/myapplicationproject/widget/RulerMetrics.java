@@ -0,0 +1,204 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RulerView的性能统计，通过{@link RulerView#setMetrics(RulerMetrics)}开启，未设置时不做任何统计
+ * 同一个实例可被多个RulerView共享，所有记录均为无锁操作，可在任意线程调用{@link #snapshot()}上报
+ */
+public final class RulerMetrics {
+
+    //onDraw耗时，单位ns
+    public static final int DRAW_TIME = 0;
+    //drawLines耗时，单位ns
+    public static final int DRAW_LINES_TIME = 1;
+    //中间文字以外的刻度文字的绘制耗时，单位ns
+    public static final int DRAW_SIDE_TEXT_TIME = 2;
+    //onTouchEvent耗时，单位ns
+    public static final int TOUCH_EVENT_TIME = 3;
+    //每帧绘制的刻度线数
+    public static final int TICKS_DRAWN = 4;
+    //每帧绘制的刻度文字数
+    public static final int LABELS_DRAWN = 5;
+    //从触摸事件产生到发起重绘的延迟，单位ns，精度为ms
+    public static final int TOUCH_TO_INVALIDATE_LATENCY = 6;
+    //fling开始到停止的时长，单位ns，精度为ms
+    public static final int FLING_DURATION = 7;
+    //每个ACTION_MOVE中的触摸采样数，包括批量的历史采样
+    public static final int TOUCH_SAMPLES = 8;
+    //开启触摸预测时，预测位置与手指实际位置的偏差，单位px
+    public static final int PREDICTION_ERROR = 9;
+    //标记的绘制耗时，单位ns
+    public static final int DRAW_MARKERS_TIME = 10;
+
+    static final int METRIC_COUNT = 11;
+
+    private static final String[] NAMES = {
+            "draw_time_ns",
+            "draw_lines_time_ns",
+            "draw_side_text_time_ns",
+            "touch_event_time_ns",
+            "ticks_drawn",
+            "labels_drawn",
+            "touch_to_invalidate_latency_ns",
+            "fling_duration_ns",
+            "touch_samples",
+            "prediction_error_px",
+            "draw_markers_time_ns",
+    };
+
+    private final Histogram[] mHistograms = new Histogram[METRIC_COUNT];
+
+    public RulerMetrics() {
+        for (int i = 0; i < METRIC_COUNT; i++)
+            mHistograms[i] = new Histogram();
+    }
+
+    /**
+     * @return 统计项的名称，用于上报
+     */
+    public static String nameOf(int metric) {
+        return NAMES[metric];
+    }
+
+    /**
+     * 记录一个值，负数按0处理
+     */
+    public void record(int metric, long value) {
+        mHistograms[metric].record(value);
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        for (Histogram histogram : mHistograms)
+            histogram.reset();
+    }
+
+    /**
+     * 获取当前统计的快照，快照与后续的记录互不影响
+     */
+    public Snapshot snapshot() {
+        HistogramSnapshot[] histograms = new HistogramSnapshot[METRIC_COUNT];
+        for (int i = 0; i < METRIC_COUNT; i++)
+            histograms[i] = mHistograms[i].snapshot();
+        return new Snapshot(histograms);
+    }
+
+    /**
+     * 按2的幂次分桶的无锁直方图，第i个桶记录[2^(i-1), 2^i)范围内的值，第0个桶记录0
+     */
+    static final class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0)
+                value = 0;
+            mBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+            mCount.incrementAndGet();
+            mSum.addAndGet(value);
+
+            long max = mMax.get();
+            while (value > max && !mMax.compareAndSet(max, value))
+                max = mMax.get();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++)
+                mBuckets.set(i, 0);
+            mCount.set(0);
+            mSum.set(0);
+            mMax.set(0);
+        }
+
+        HistogramSnapshot snapshot() {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++)
+                buckets[i] = mBuckets.get(i);
+            return new HistogramSnapshot(buckets, mCount.get(), mSum.get(), mMax.get());
+        }
+    }
+
+    /**
+     * 所有统计项的快照
+     */
+    public static final class Snapshot {
+        private final HistogramSnapshot[] mHistograms;
+
+        Snapshot(HistogramSnapshot[] histograms) {
+            mHistograms = histograms;
+        }
+
+        public HistogramSnapshot get(int metric) {
+            return mHistograms[metric];
+        }
+
+        public int size() {
+            return mHistograms.length;
+        }
+    }
+
+    /**
+     * 单个统计项的快照
+     */
+    public static final class HistogramSnapshot {
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mSum;
+        private final long mMax;
+
+        HistogramSnapshot(long[] buckets, long count, long sum, long max) {
+            mBuckets = buckets;
+            mCount = count;
+            mSum = sum;
+            mMax = max;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getSum() {
+            return mSum;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        public double getMean() {
+            return mCount == 0 ? 0 : (double) mSum / mCount;
+        }
+
+        /**
+         * 估算百分位数，返回所在桶的上限，且不超过最大值
+         *
+         * @param percentile [0-100]
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (long bucket : mBuckets)
+                total += bucket;
+            if (total == 0)
+                return 0;
+
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank && mBuckets[i] > 0) {
+                    long upper = i == 0 ? 0 : (1L << i) - 1;
+                    return Math.min(upper, mMax);
+                }
+            }
+            return mMax;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.v4.view.animation.LinearOutSlowInInterpolator;
+import android.view.Choreographer;
+import android.view.Surface;
+import android.widget.Scroller;
+
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link RulerSurfaceView}的渲染线程，在自己的Looper上由Choreographer驱动，推进fling及校准并绘制到Surface
+ * 数值模型、scroller、绘制资源只在本线程中使用，主线程的设置以消息的形式传入，触摸事件经{@link TouchQueue}传入
+ * <p>
+ * 当前值以快照的形式发布给主线程：单位值左移一位，最低位表示是否已停止，本线程运行期间只有本线程写入
+ */
+final class RulerRenderThread extends HandlerThread implements Choreographer.FrameCallback {
+
+    //scroller边界的上限，保证坐标计算不溢出
+    private static final int MAX_FLING_DISTANCE = Integer.MAX_VALUE / 2;
+    //触摸队列的容量，渲染线程停顿约半秒才会写满
+    private static final int TOUCH_QUEUE_CAPACITY = 64;
+
+    private final RulerAttributes mAttributes;
+    private final AtomicLong mSnapshot;
+    //快照对应的直接设置次数，每次发布时在快照之后写入
+    private final AtomicInteger mSnapshotGeneration;
+    //快照改变后在本线程中调用，由主线程合并后分发
+    private final Runnable mOnPublish;
+    private final TouchQueue mTouchQueue = new TouchQueue(TOUCH_QUEUE_CAPACITY);
+    //是否已请求处理触摸事件，避免每个事件都发送一条消息
+    private final AtomicBoolean mWakeQueued = new AtomicBoolean();
+
+    private Handler mHandler;
+    //本线程的Choreographer，在Looper准备好后获取
+    private Choreographer mChoreographer;
+    private boolean mFrameScheduled;
+
+    //以下只在本线程中使用
+    private final RulerCore mCore = new RulerCore();
+    private final RulerRenderer mRenderer = new RulerRenderer(mCore, null);
+    private final AndroidRulerCanvas mRulerCanvas = new AndroidRulerCanvas(null);
+    private final RulerLayout mRulerLayout;
+    private final Scroller mScroller;
+    private RulerResources mResources;
+    private Surface mSurface;
+    private int mWidth;
+    private int mHeight;
+
+    private boolean mOpenCorrection;
+    private int mFlingSnap;
+    private boolean mTouching;
+    private float mLastXY;
+    private float mLastScrollerXY;
+
+    //上一次绘制时的单位值及偏移值，样式或尺寸改变后需要重绘
+    private long mDrawnUnitValue = Long.MIN_VALUE;
+    private double mDrawnScrollXY;
+    private boolean mDirty;
+    private long mPublished = Long.MIN_VALUE;
+    //已应用的主线程直接设置次数
+    private int mGeneration;
+
+    private final Runnable mWakeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mWakeQueued.set(false);
+            scheduleFrame();
+        }
+    };
+
+    RulerRenderThread(Context context, RulerAttributes attributes, AtomicLong snapshot,
+                      AtomicInteger snapshotGeneration, Runnable onPublish) {
+        super("RulerRender", Process.THREAD_PRIORITY_DISPLAY);
+        mAttributes = attributes;
+        mSnapshot = snapshot;
+        mSnapshotGeneration = snapshotGeneration;
+        mGeneration = snapshotGeneration.get();
+        mOnPublish = onPublish;
+        mScroller = new Scroller(context, new LinearOutSlowInInterpolator());
+
+        RulerAttributes a = attributes;
+        mCore.setLineMargin(a.mLineMargin);
+        mRulerLayout = RulerLayout.of(a.mIsHorizontal, a.mRulerGravity);
+        mRenderer.setLabelMode(a.mLabelMode);
+    }
+
+    @Override
+    protected void onLooperPrepared() {
+        mChoreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * 启动线程并等待Looper准备好，之后才能调用其它方法
+     */
+    void startAndPrepare() {
+        start();
+        mHandler = new Handler(getLooper());
+    }
+
+    /**
+     * 在主线程中调用，写入触摸事件并唤醒本线程
+     *
+     * @return 是否写入，队列满时返回false
+     */
+    boolean offerTouch(int type, float xy, float velocity) {
+        boolean offered = mTouchQueue.offer(type, xy, velocity);
+        if (mWakeQueued.compareAndSet(false, true))
+            mHandler.post(mWakeRunnable);
+        return offered;
+    }
+
+    void setSurface(final SurfaceTexture surfaceTexture, final int width, final int height) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mSurface = new Surface(surfaceTexture);
+                resize(width, height);
+            }
+        });
+    }
+
+    void setSize(final int width, final int height) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                resize(width, height);
+            }
+        });
+    }
+
+    /**
+     * 设置数值配置，正在进行的fling及校准被终止
+     *
+     * @param generation 主线程直接设置数值的次数，随下一次快照发布
+     */
+    void setValues(final Scale scale, final String unit, final int valueInterval, final int textInterval,
+                   final long minUnitValue, final long maxUnitValue, final long currentUnitValue,
+                   final int generation) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                stopScrolling();
+                if (!scale.equals(mCore.getScale()))
+                    mCore.setScale(scale);
+                mCore.setValueInterval(valueInterval);
+                mCore.setTextInterval(textInterval);
+                mCore.setMinUnitValue(minUnitValue);
+                mCore.setMaxUnitValue(maxUnitValue);
+                mCore.setCurrentUnitValue(currentUnitValue);
+                setGeneration(generation);
+                updateResources(unit);
+                mDirty = true;
+                scheduleFrame();
+            }
+        });
+    }
+
+    void setCurrentUnitValue(final long currentUnitValue, final int generation) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                stopScrolling();
+                mCore.setCurrentUnitValue(currentUnitValue);
+                setGeneration(generation);
+                scheduleFrame();
+            }
+        });
+    }
+
+    void setScrollOptions(final boolean openCorrection, final int flingSnap) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mOpenCorrection = openCorrection;
+                mFlingSnap = flingSnap;
+            }
+        });
+    }
+
+    /**
+     * 在主线程中调用，停止绘制并释放Surface，等待线程结束后返回
+     * 返回后快照为停止时的数值，主线程可以再次写入
+     */
+    void quitAndWait() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mFrameScheduled) {
+                    mChoreographer.removeFrameCallback(RulerRenderThread.this);
+                    mFrameScheduled = false;
+                }
+                stopScrolling();
+                publish();
+                if (mSurface != null) {
+                    mSurface.release();
+                    mSurface = null;
+                }
+                if (mResources != null) {
+                    mResources.release();
+                    mResources = null;
+                }
+                quit();
+            }
+        });
+
+        boolean interrupted = false;
+        while (isAlive()) {
+            try {
+                join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 每个vsync最多执行一次：处理触摸事件、推进scroller的计算、发布快照，可见内容改变时才绘制
+     */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        drainTouches();
+
+        if (mScroller.computeScrollOffset()) {
+            boolean isHorizontal = mRulerLayout.isHorizontal();
+            float distance = isHorizontal ? mScroller.getCurrX() - mLastScrollerXY : mScroller.getCurrY() - mLastScrollerXY;
+            mCore.scroll(distance);
+            mLastScrollerXY = isHorizontal ? mScroller.getCurrX() : mScroller.getCurrY();
+
+            if (mOpenCorrection && mScroller.isFinished() && mCore.normalizeScroll())
+                scrollBackToCorrectPos();
+            if (!mScroller.isFinished())
+                scheduleFrame();
+        }
+
+        publish();
+        if (mDirty || mCore.getCurrentUnitValue() != mDrawnUnitValue || mCore.getScrollXY() != mDrawnScrollXY)
+            draw();
+    }
+
+    /**
+     * 处理队列中的全部触摸事件，移动事件只取决于首尾位置，一帧内的多个事件合并为一次偏移
+     */
+    private void drainTouches() {
+        int type;
+        while ((type = mTouchQueue.poll()) >= 0) {
+            float xy = mTouchQueue.xy();
+            switch (type) {
+                case TouchQueue.TOUCH_DOWN:
+                    stopScrolling();
+                    mTouching = true;
+                    mLastXY = xy;
+                    break;
+                case TouchQueue.TOUCH_RESTART:
+                    mLastXY = xy;
+                    break;
+                case TouchQueue.TOUCH_MOVE:
+                    mCore.scroll(mLastXY - xy);
+                    mLastXY = xy;
+                    break;
+                case TouchQueue.TOUCH_UP:
+                    mCore.scroll(mLastXY - xy);
+                    mTouching = false;
+                    //主线程已过滤低于最小fling速度的抬起
+                    float velocity = mTouchQueue.velocity();
+                    if (velocity != 0)
+                        fling(-(int) velocity);
+                    else if (mOpenCorrection && mCore.normalizeScroll())
+                        scrollBackToCorrectPos();
+                    //在下一帧发布停止后的数值
+                    scheduleFrame();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 与{@link RulerView}一致，根据预计的终点调整为刻度的位置，不支持标记，停靠到标记时按任意刻度处理
+     */
+    private void fling(int velocity) {
+        mLastScrollerXY = 0;
+        int min = mCore.getDistanceToMin(MAX_FLING_DISTANCE);
+        int max = mCore.getDistanceToMax(MAX_FLING_DISTANCE);
+        boolean isHorizontal = mRulerLayout.isHorizontal();
+        if (isHorizontal)
+            mScroller.fling(0, 0, velocity, 0, min, max, 0, 0);
+        else
+            mScroller.fling(0, 0, 0, velocity, 0, 0, min, max);
+
+        if (mFlingSnap != RulerView.FLING_SNAP_NONE) {
+            int snapInterval = mFlingSnap == RulerView.FLING_SNAP_MAJOR ? mCore.getValueInterval() : 1;
+            if (isHorizontal)
+                mScroller.setFinalX(mCore.snapFlingDistance(mScroller.getFinalX(), snapInterval, MAX_FLING_DISTANCE));
+            else
+                mScroller.setFinalY(mCore.snapFlingDistance(mScroller.getFinalY(), snapInterval, MAX_FLING_DISTANCE));
+        }
+        scheduleFrame();
+    }
+
+    private void scrollBackToCorrectPos() {
+        int scroll = (int) mCore.getCorrectionDistance();
+        mLastScrollerXY = 0;
+        if (mRulerLayout.isHorizontal())
+            mScroller.startScroll(0, 0, scroll, 0);
+        else
+            mScroller.startScroll(0, 0, 0, scroll);
+        scheduleFrame();
+    }
+
+    private void stopScrolling() {
+        if (!mScroller.isFinished())
+            mScroller.abortAnimation();
+        mCore.resetScroll();
+        mTouching = false;
+    }
+
+    /**
+     * 应用主线程的直接设置后，下一帧即使数值未变也重新发布，主线程据此恢复回调
+     */
+    private void setGeneration(int generation) {
+        mGeneration = generation;
+        mPublished = Long.MIN_VALUE;
+    }
+
+    /**
+     * 数值或是否停止改变时更新快照并通知主线程
+     */
+    private void publish() {
+        boolean settled = !mTouching && mScroller.isFinished() && mTouchQueue.isEmpty();
+        long snapshot = mCore.getCurrentUnitValue() << 1 | (settled ? 1 : 0);
+        if (snapshot == mPublished)
+            return;
+        mPublished = snapshot;
+        //主线程先读次数再读快照，因此先写快照
+        mSnapshot.set(snapshot);
+        mSnapshotGeneration.set(mGeneration);
+        mOnPublish.run();
+    }
+
+    private void resize(int width, int height) {
+        RulerAttributes a = mAttributes;
+        mWidth = width;
+        mHeight = height;
+        mCore.setLength(mRulerLayout.isHorizontal() ? width : height);
+        mRulerLayout.update(width, height, a.mMaxLength, a.mTextValueMargin, a.mLargeTextSize, a.mSmallTextSize);
+        mRenderer.setRulerLayout(mRulerLayout);
+        mRenderer.setLengths(a.mMaxLength, a.mNormalLength, a.mLongLength);
+        mRenderer.setTextSizes(a.mLargeTextSize, a.mSmallTextSize);
+        mRenderer.update();
+        mDirty = true;
+        scheduleFrame();
+    }
+
+    /**
+     * 刻度值的换算方式或单位改变后重新创建本线程独占的绘制资源，共享资源只能在主线程中使用
+     */
+    private void updateResources(String unit) {
+        RulerAttributes a = mAttributes;
+        if (mResources != null && mResources.getKey().matches(a.mLineColor, a.mTextColor, a.mNormalWidth, a.mBoldWidth,
+                a.mLargeTextSize, a.mSmallTextSize, mRulerLayout.getTextAlign(), mCore.getScale(), unit, a.mDensityColor, a.mMarkerColor))
+            return;
+
+        if (mResources != null)
+            mResources.release();
+        mResources = RulerResources.createPrivate(new RulerResources.Key(a.mLineColor, a.mTextColor, a.mNormalWidth, a.mBoldWidth,
+                a.mLargeTextSize, a.mSmallTextSize, mRulerLayout.getTextAlign(), mCore.getScale(), unit, a.mDensityColor, a.mMarkerColor));
+        mRulerCanvas.setPaints(mResources.getPaints());
+        mRenderer.setTextResources(mResources.getLabelCache(), mResources.getCenterAdvances(), mResources.getSideAdvances());
+    }
+
+    private void draw() {
+        if (mSurface == null || mResources == null || mWidth <= 0 || mHeight <= 0)
+            return;
+
+        Canvas canvas;
+        try {
+            canvas = mSurface.lockCanvas(null);
+        } catch (IllegalArgumentException | Surface.OutOfResourcesException e) {
+            return;
+        }
+        if (canvas == null)
+            return;
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            mRulerCanvas.setCanvas(canvas);
+            mRenderer.draw(mRulerCanvas);
+        } finally {
+            mSurface.unlockCanvasAndPost(canvas);
+        }
+        mDirty = false;
+        mDrawnUnitValue = mCore.getCurrentUnitValue();
+        mDrawnScrollXY = mCore.getScrollXY();
+    }
+}
@@ -0,0 +1,448 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import com.meitu.lyz.myapplicationproject.widget.core.MarkerIndex;
+import com.meitu.lyz.myapplicationproject.widget.core.MinMaxPyramid;
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+import com.meitu.lyz.myapplicationproject.widget.core.TickLabelLayout;
+
+/**
+ * 刻度尺的绘制，通过{@link RulerCanvas}输出，不直接依赖Android的Canvas及Paint
+ * 坐标及数值由{@link RulerCore}计算，线的端点及文字的锚点由{@link RulerLayout}计算
+ */
+final class RulerRenderer {
+
+    //刻度线按透明度分成的组数
+    static final int ALPHA_BUCKETS = 16;
+    //两侧文字的透明度
+    private static final int SIDE_TEXT_ALPHA = 255 / 3;
+
+    private final RulerCore mCore;
+    private LabelCache mLabelCache;
+    private RulerLayout mRulerLayout;
+
+    //中间标识线、短刻度线及长刻度线的长度
+    private int mMaxLength;
+    private int mNormalLength;
+    private int mLongLength;
+    //中间及两侧刻度值文字的大小
+    private int mLargeTextSize;
+    private int mSmallTextSize;
+
+    //刻度线端点的顶点数组，每条刻度线占4个float
+    private float[] mLineBuffer;
+    private final int[] mBucketCounts = new int[ALPHA_BUCKETS];
+    private final int[] mBucketCursors = new int[ALPHA_BUCKETS];
+    //中间基准线的端点
+    private final float[] mBaseLineBuffer = new float[4];
+    //中间及两侧文字画笔的字符宽度表
+    private GlyphAdvances mCenterAdvances = new GlyphAdvances();
+    private GlyphAdvances mSideAdvances = new GlyphAdvances();
+
+    //数据分布的金字塔、第0个数据对应的单位值及分布的最大高度，未设置数据时不绘制
+    private MinMaxPyramid mDensity;
+    private long mDensityOrigin;
+    private int mDensityHeight;
+    private int mDensityBinWidth = 2;
+    //数据分布的顶点数组，每个分组占4个float
+    private float[] mDensityBuffer;
+
+    //刻度上的标记，为null时不绘制
+    private MarkerIndex mMarkers;
+    //标记的顶点数组，每个标记占4个float
+    private float[] mMarkerBuffer;
+
+    //刻度文字的显示方式
+    private int mLabelMode = RulerView.LABEL_MODE_SIDE;
+    //逐刻度文字的布局
+    private final TickLabelLayout mTickLabels = new TickLabelLayout();
+    private final TickLabelLayout.Measurer mTickLabelMeasurer = new TickLabelLayout.Measurer() {
+        @Override
+        public float measure(long unitValue) {
+            if (!mRulerLayout.isHorizontal())
+                return mSmallTextSize;
+            int slot = mLabelCache.get(unitValue);
+            return mSideAdvances.measure(mLabelCache.chars(slot), mLabelCache.length(slot));
+        }
+    };
+
+    RulerRenderer(RulerCore core, LabelCache labelCache) {
+        mCore = core;
+        mLabelCache = labelCache;
+    }
+
+    /**
+     * 使用{@link RulerResources}中共享的刻度文字缓存及字符宽度表
+     */
+    void setTextResources(LabelCache labelCache, GlyphAdvances centerAdvances, GlyphAdvances sideAdvances) {
+        mLabelCache = labelCache;
+        mCenterAdvances = centerAdvances;
+        mSideAdvances = sideAdvances;
+    }
+
+    void setRulerLayout(RulerLayout rulerLayout) {
+        mRulerLayout = rulerLayout;
+    }
+
+    void setLengths(int maxLength, int normalLength, int longLength) {
+        mMaxLength = maxLength;
+        mNormalLength = normalLength;
+        mLongLength = longLength;
+    }
+
+    /**
+     * @param density 为null时不绘制数据分布
+     * @param origin  第0个数据对应的单位值
+     */
+    void setDensity(MinMaxPyramid density, long origin) {
+        mDensity = density;
+        mDensityOrigin = origin;
+    }
+
+    /**
+     * @return 是否有需要绘制的数据分布
+     */
+    boolean hasDensity() {
+        return mDensity != null && mDensity.size() > 0;
+    }
+
+    void setMarkers(MarkerIndex markers) {
+        mMarkers = markers;
+    }
+
+    /**
+     * @param height   数据分布的最大高度
+     * @param binWidth 每个分组的宽度，与画笔的宽度一致
+     */
+    void setDensityGeometry(int height, int binWidth) {
+        mDensityHeight = height;
+        mDensityBinWidth = Math.max(1, binWidth);
+    }
+
+    /**
+     * 数据分布中每个分组的宽度，由刻度线的宽度决定
+     */
+    static int densityBinWidth(int normalWidth) {
+        return Math.max(2, normalWidth * 2);
+    }
+
+    void setTextSizes(int largeTextSize, int smallTextSize) {
+        mLargeTextSize = largeTextSize;
+        mSmallTextSize = smallTextSize;
+    }
+
+    void setLabelMode(int labelMode) {
+        mLabelMode = labelMode;
+    }
+
+    /**
+     * 文字画笔或刻度单位改变后，重新测量字符宽度表
+     */
+    void updateTextMetrics(RulerCanvas canvas) {
+        char[] unit = mLabelCache.unit();
+        mCenterAdvances.update(canvas, RulerCanvas.PAINT_CENTER_TEXT, unit);
+        mSideAdvances.update(canvas, RulerCanvas.PAINT_SIDE_TEXT, unit);
+    }
+
+    /**
+     * @return 单位值对应的文字以中间文字画笔绘制时的宽度
+     */
+    float measureCenterText(long unitValue) {
+        int slot = mLabelCache.get(unitValue);
+        return mCenterAdvances.measure(mLabelCache.chars(slot), mLabelCache.length(slot));
+    }
+
+    /**
+     * 尺寸或布局改变后，重新计算中间基准线的端点并确保顶点数组足够
+     */
+    void update() {
+        mRulerLayout.putLine(mBaseLineBuffer, 0, mCore.getCenterXY(), mMaxLength);
+        ensureLineBuffer();
+    }
+
+    /**
+     * 绘制一帧
+     *
+     * @return 绘制的刻度线数
+     */
+    int draw(RulerCanvas canvas) {
+        drawDensity(canvas);
+        drawCenterText(canvas);
+        drawBaseLine(canvas);
+        int ticks = drawLines(canvas);
+        drawMarkers(canvas);
+        drawLabels(canvas);
+        return ticks;
+    }
+
+    /**
+     * 按文字的显示方式绘制中间文字以外的刻度文字
+     *
+     * @return 绘制的文字数
+     */
+    int drawLabels(RulerCanvas canvas) {
+        if (mLabelMode == RulerView.LABEL_MODE_TICKS)
+            return drawTickLabels(canvas);
+        return drawSideText(canvas);
+    }
+
+    /**
+     * 在可见范围内每隔{@link RulerCore#getTextInterval()}个刻度绘制文字，透明度随刻度线渐变
+     *
+     * @return 绘制的文字数
+     */
+    int drawTickLabels(RulerCanvas canvas) {
+        boolean isHorizontal = mRulerLayout.isHorizontal();
+        float centerExtent = isHorizontal ? measureCenterText(mCore.getCurrentUnitValue()) : mLargeTextSize;
+        //与中间文字的间距同两侧文字模式一致
+        float centerGap = isHorizontal ? mSmallTextSize + mLargeTextSize : mSmallTextSize;
+        int count = mTickLabels.layout(mCore, mTickLabelMeasurer, centerExtent, centerGap, mSmallTextSize / 2f);
+
+        for (int i = 0; i < count; i++) {
+            int xy = mTickLabels.getXY(i);
+            int slot = mLabelCache.get(mTickLabels.getUnitValue(i));
+            canvas.setAlpha(RulerCanvas.PAINT_SIDE_TEXT, mTickLabels.getAlpha(i));
+            canvas.drawText(mLabelCache.chars(slot), 0, mLabelCache.length(slot),
+                    mRulerLayout.sideTextX(xy), mRulerLayout.sideTextY(xy), RulerCanvas.PAINT_SIDE_TEXT);
+        }
+        return count;
+    }
+
+    /**
+     * 绘制中间的当前数值
+     */
+    void drawCenterText(RulerCanvas canvas) {
+        int centerXY = mCore.getCenterXY();
+        int slot = mLabelCache.get(mCore.getCurrentUnitValue());
+        char[] s = mLabelCache.chars(slot);
+        int length = mLabelCache.length(slot);
+
+        canvas.drawText(s, 0, length, mRulerLayout.centerTextX(centerXY), mRulerLayout.centerTextY(centerXY), RulerCanvas.PAINT_CENTER_TEXT);
+    }
+
+    /**
+     * 绘制坐标文字
+     *
+     * @param alpha     透明度 [0-255]
+     * @param startXY   偏移值
+     * @param unitValue       刻度的单位值
+     * @param centerTextWidth 中间文字的宽度
+     * @return 是否绘制，与中间文字重叠时不绘制
+     */
+    private boolean drawText(RulerCanvas canvas, long unitValue, int startXY, int alpha, float centerTextWidth) {
+
+        int slot = mLabelCache.get(unitValue);
+        char[] s = mLabelCache.chars(slot);
+        int length = mLabelCache.length(slot);
+        float textWidth = mSideAdvances.measure(s, length);
+
+        int centerXY = mCore.getCenterXY();
+        boolean isHorizontal = mRulerLayout.isHorizontal();
+        if (isHorizontal && Math.abs(startXY - centerXY) <= ((textWidth + centerTextWidth) / 2 + mSmallTextSize + mLargeTextSize))
+            return false;
+        else if (!isHorizontal && Math.abs(startXY - centerXY) <= ((mSmallTextSize + mLargeTextSize) / 2 + mSmallTextSize))
+            return false;
+
+        canvas.setAlpha(RulerCanvas.PAINT_SIDE_TEXT, alpha);
+
+        canvas.drawText(s, 0, length, mRulerLayout.sideTextX(startXY), mRulerLayout.sideTextY(startXY), RulerCanvas.PAINT_SIDE_TEXT);
+        return true;
+    }
+
+    /**
+     * 绘制中间的基准线
+     */
+    void drawBaseLine(RulerCanvas canvas) {
+        canvas.drawLines(mBaseLineBuffer, 0, 4, RulerCanvas.PAINT_BASE_LINE);
+    }
+
+    /**
+     * 绘制刻度线
+     * 刻度线按透明度分组写入顶点数组，每组只调用一次drawLines
+     * 只绘制当前层级的刻度，即每隔{@link RulerCore#getTickStride()}个刻度一条
+     *
+     * @return 绘制的刻度线数
+     */
+    int drawLines(RulerCanvas canvas) {
+
+        ensureLineBuffer();
+
+        //只遍历可见且在数值范围内的刻度，开始绘制的第一条刻度线的数值及坐标值
+        RulerCore core = mCore;
+        int start = core.getVisibleTickStart();
+        int end = core.getVisibleEnd();
+        int stride = core.getTickStride();
+        int lineMargin = core.getLineMargin();
+        int strideMargin = stride * lineMargin;
+        long firstUnitValue = core.getFirstUnitValue() + start;
+        int firstXY = core.getFirstXY() + start * lineMargin;
+
+        //第一遍统计每个透明度分组的刻度数，得到各组在顶点数组中的起始位置
+        for (int b = 0; b < ALPHA_BUCKETS; b++)
+            mBucketCounts[b] = 0;
+        int startXY = firstXY;
+        for (int i = start; i < end; i += stride, startXY += strideMargin) {
+            int bucket = core.alphaBucket(startXY, ALPHA_BUCKETS);
+            if (bucket >= 0)
+                mBucketCounts[bucket]++;
+        }
+        int offset = 0;
+        for (int b = 0; b < ALPHA_BUCKETS; b++) {
+            mBucketCursors[b] = offset;
+            offset += mBucketCounts[b];
+        }
+
+        //第二遍将刻度线的端点写入所属分组
+        long startUnitValue = firstUnitValue;
+        startXY = firstXY;
+        for (int i = start; i < end; i += stride, startUnitValue += stride, startXY += strideMargin) {
+            int bucket = core.alphaBucket(startXY, ALPHA_BUCKETS);
+            if (bucket < 0)
+                continue;
+
+            //长刻度线与短刻度线
+            int length = core.isLongTick(startUnitValue) ? mLongLength : mNormalLength;
+            mRulerLayout.putLine(mLineBuffer, mBucketCursors[bucket]++ * 4, startXY, length);
+        }
+
+        //每组使用该组透明度的上限绘制
+        offset = 0;
+        for (int b = 0; b < ALPHA_BUCKETS; b++) {
+            int count = mBucketCounts[b];
+            if (count > 0) {
+                canvas.setAlpha(RulerCanvas.PAINT_LINE, (b + 1) * 256 / ALPHA_BUCKETS - 1);
+                canvas.drawLines(mLineBuffer, offset * 4, count * 4, RulerCanvas.PAINT_LINE);
+                offset += count;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * 在刻度线下方绘制可见范围内的数据分布，每个分组绘制为从最小值到最大值的一条线，只调用一次drawLines
+     * 每个分组覆盖2^level个数据，level取分组宽度不小于{@link #densityBinWidth(int)}的最低一级，
+     * 每帧的分组数不超过尺长度/分组宽度，与数据量及缩放比例无关
+     *
+     * @return 绘制的分组数
+     */
+    int drawDensity(RulerCanvas canvas) {
+        MinMaxPyramid density = mDensity;
+        if (density == null || density.size() == 0 || mDensityHeight <= 0)
+            return 0;
+        float minValue = density.getMinValue();
+        float maxValue = density.getMaxValue();
+        if (minValue != minValue)
+            return 0;
+        float scale = maxValue > minValue ? mDensityHeight / (maxValue - minValue) : 0;
+
+        RulerCore core = mCore;
+        int lineMargin = core.getLineMargin();
+        int level = Math.min(MinMaxPyramid.levelFor((mDensityBinWidth + lineMargin - 1) / lineMargin),
+                density.getLevelCount() - 1);
+        int span = 1 << level;
+
+        //可见刻度对应的数据下标范围
+        long firstUnitValue = core.getFirstUnitValue();
+        long from = Math.max(0, firstUnitValue + core.getVisibleStart() - mDensityOrigin);
+        long to = Math.min(density.size(), firstUnitValue + core.getVisibleEnd() - mDensityOrigin);
+        if (from >= to)
+            return 0;
+        int firstBin = (int) (from >> level);
+        int endBin = (int) ((to - 1) >> level) + 1;
+        ensureDensityBuffer(endBin - firstBin);
+
+        int firstXY = core.getFirstXY();
+        float binOffset = (span - 1) * lineMargin / 2f;
+        int count = 0;
+        for (int bin = firstBin; bin < endBin; bin++) {
+            float min = density.getMin(level, bin);
+            if (min != min)
+                continue;
+            float max = density.getMax(level, bin);
+            float xy = firstXY + (mDensityOrigin + ((long) bin << level) - firstUnitValue) * lineMargin + binOffset;
+            float start = (min - minValue) * scale;
+            float end = scale == 0 ? mDensityHeight : (max - minValue) * scale;
+            //最小最大值相同时至少绘制1px
+            mRulerLayout.putSpan(mDensityBuffer, count++ * 4, xy, start, Math.max(end, start + 1));
+        }
+        if (count > 0)
+            canvas.drawLines(mDensityBuffer, 0, count * 4, RulerCanvas.PAINT_DENSITY);
+        return count;
+    }
+
+    /**
+     * 在刻度线上方绘制可见范围内的标记，标记与中间标识线等长，只调用一次drawLines
+     * 可见的标记由二分查找得到，开销与标记总数无关
+     *
+     * @return 绘制的标记数
+     */
+    int drawMarkers(RulerCanvas canvas) {
+        MarkerIndex markers = mMarkers;
+        if (markers == null || markers.size() == 0)
+            return 0;
+
+        RulerCore core = mCore;
+        long firstUnitValue = core.getFirstUnitValue();
+        int from = markers.lowerBound(firstUnitValue + core.getVisibleStart());
+        int to = markers.lowerBound(firstUnitValue + core.getVisibleEnd());
+        if (from >= to)
+            return 0;
+        if (mMarkerBuffer == null || mMarkerBuffer.length < (to - from) * 4)
+            mMarkerBuffer = new float[core.getLineItems() * 4];
+
+        int firstXY = core.getFirstXY();
+        int lineMargin = core.getLineMargin();
+        for (int i = from; i < to; i++) {
+            float xy = firstXY + (markers.get(i) - firstUnitValue) * lineMargin;
+            mRulerLayout.putLine(mMarkerBuffer, (i - from) * 4, xy, mMaxLength);
+        }
+        canvas.drawLines(mMarkerBuffer, 0, (to - from) * 4, RulerCanvas.PAINT_MARKER);
+        return to - from;
+    }
+
+    /**
+     * 确保数据分布的顶点数组足够，可见分组数只与尺长度有关，只在尺寸改变后重新分配
+     */
+    private void ensureDensityBuffer(int bins) {
+        if (mDensityBuffer == null || mDensityBuffer.length < bins * 4)
+            mDensityBuffer = new float[bins * 4];
+    }
+
+    /**
+     * 确保刻度线的顶点数组能容纳当前层级的所有可见刻度，只在尺寸、间距或层级改变后重新分配
+     */
+    private void ensureLineBuffer() {
+        int lineItems = mCore.getLineItems() / mCore.getTickStride() + 1;
+        if (mLineBuffer == null || mLineBuffer.length < lineItems * 4)
+            mLineBuffer = new float[lineItems * 4];
+    }
+
+    /**
+     * 绘制两侧的刻度值
+     *
+     * @return 绘制的文字数
+     */
+    int drawSideText(RulerCanvas canvas) {
+        int interval = mCore.getSideTextInterval();
+        if (interval <= 0)
+            return 0;
+
+        int centerXY = mCore.getCenterXY();
+        int lineMargin = mCore.getLineMargin();
+        long currentUnitValue = mCore.getCurrentUnitValue();
+        float centerTextWidth = measureCenterText(currentUnitValue);
+
+        int textStartXY = centerXY - lineMargin * interval;
+        long value = currentUnitValue - interval;
+        int labels = 0;
+        if (value >= mCore.getMinUnitValue() && drawText(canvas, value, textStartXY, SIDE_TEXT_ALPHA, centerTextWidth)) {
+            labels++;
+        }
+
+        textStartXY = centerXY + lineMargin * interval;
+        value = currentUnitValue + interval;
+        if (value <= mCore.getMaxUnitValue() && drawText(canvas, value, textStartXY, SIDE_TEXT_ALPHA, centerTextWidth)) {
+            labels++;
+        }
+        return labels;
+    }
+}
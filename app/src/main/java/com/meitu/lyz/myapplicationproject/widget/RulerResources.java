@@ -0,0 +1,243 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Build;
+
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * 进程内共享的绘制资源，按样式参数缓存并引用计数
+ * 样式相同的RulerView共享同一份画笔、刻度文字缓存、字符宽度表及刻度位图，
+ * 后创建的尺直接使用已预热的缓存，最后一个引用释放时才回收
+ * <p>
+ * 共享的资源只能在主线程中使用，绘制过程只修改画笔的透明度，且每次使用前都会重新设置
+ * 在其它线程中绘制时使用{@link #createPrivate(Key)}创建独占的资源
+ */
+final class RulerResources {
+
+    //共享后每个尺可见的文字数成倍增加，缓存容量相应增大
+    private static final int LABEL_CACHE_CAPACITY = 64;
+    //每份资源最多保留的刻度位图数，超出时淘汰最早生成的
+    private static final int MAX_TICK_STRIPS = 4;
+
+    private static final HashMap<Key, RulerResources> sPool = new HashMap<>();
+
+    private final Key mKey;
+    private int mRefCount;
+
+    //按RulerCanvas中的画笔编号排列
+    private final Paint[] mPaints = new Paint[RulerCanvas.PAINT_COUNT];
+    private final LabelCache mLabelCache = new LabelCache(LABEL_CACHE_CAPACITY);
+    private final GlyphAdvances mCenterAdvances = new GlyphAdvances();
+    private final GlyphAdvances mSideAdvances = new GlyphAdvances();
+    private final ArrayList<TickStrip> mTickStrips = new ArrayList<>();
+
+    private RulerResources(Key key) {
+        mKey = key;
+
+        Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        linePaint.setColor(key.mLineColor);
+        linePaint.setStrokeWidth(key.mNormalWidth);
+
+        Paint baseLinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        baseLinePaint.setColor(key.mLineColor);
+        baseLinePaint.setStrokeWidth(key.mBoldWidth);
+
+        Paint centerTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        centerTextPaint.setColor(key.mTextColor);
+        centerTextPaint.setTextSize(key.mLargeTextSize);
+        centerTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        centerTextPaint.setTextAlign(key.mTextAlign);
+
+        Paint sideTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        sideTextPaint.setColor(key.mTextColor);
+        sideTextPaint.setTextSize(key.mSmallTextSize);
+        sideTextPaint.setTypeface(Typeface.DEFAULT);
+        sideTextPaint.setTextAlign(key.mTextAlign);
+
+        //每个分组绘制为一条与分组等宽的线，相邻分组首尾相接
+        Paint densityPaint = new Paint();
+        densityPaint.setColor(key.mDensityColor);
+        densityPaint.setStrokeWidth(RulerRenderer.densityBinWidth(key.mNormalWidth));
+
+        Paint markerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        markerPaint.setColor(key.mMarkerColor);
+        markerPaint.setStrokeWidth(key.mBoldWidth);
+
+        //等宽数字使中间文字滑动时宽度不变，并使查表得到的文字宽度与实际一致
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            centerTextPaint.setFontFeatureSettings("tnum");
+            sideTextPaint.setFontFeatureSettings("tnum");
+        }
+
+        mPaints[RulerCanvas.PAINT_LINE] = linePaint;
+        mPaints[RulerCanvas.PAINT_BASE_LINE] = baseLinePaint;
+        mPaints[RulerCanvas.PAINT_CENTER_TEXT] = centerTextPaint;
+        mPaints[RulerCanvas.PAINT_SIDE_TEXT] = sideTextPaint;
+        mPaints[RulerCanvas.PAINT_DENSITY] = densityPaint;
+        mPaints[RulerCanvas.PAINT_MARKER] = markerPaint;
+
+        mLabelCache.setFormat(key.mScale, key.mUnit);
+        AndroidRulerCanvas measurer = new AndroidRulerCanvas(mPaints);
+        mCenterAdvances.update(measurer, RulerCanvas.PAINT_CENTER_TEXT, mLabelCache.unit());
+        mSideAdvances.update(measurer, RulerCanvas.PAINT_SIDE_TEXT, mLabelCache.unit());
+    }
+
+    /**
+     * 获取样式对应的资源，不存在时创建，引用数加1
+     * 不再使用时需调用{@link #release()}
+     */
+    static synchronized RulerResources acquire(Key key) {
+        RulerResources resources = sPool.get(key);
+        if (resources == null) {
+            resources = new RulerResources(key);
+            sPool.put(key, resources);
+        }
+        resources.mRefCount++;
+        return resources;
+    }
+
+    /**
+     * 创建不放入缓存的资源，只由调用方所在的线程使用，不再使用时同样调用{@link #release()}
+     */
+    static RulerResources createPrivate(Key key) {
+        RulerResources resources = new RulerResources(key);
+        resources.mRefCount = 1;
+        return resources;
+    }
+
+    /**
+     * 引用数减1，没有引用时从缓存中移除
+     */
+    void release() {
+        synchronized (RulerResources.class) {
+            if (--mRefCount > 0)
+                return;
+            //独占的资源不在缓存中，不能移除样式相同的共享资源
+            if (sPool.get(mKey) == this)
+                sPool.remove(mKey);
+            mTickStrips.clear();
+        }
+    }
+
+    Key getKey() {
+        return mKey;
+    }
+
+    Paint[] getPaints() {
+        return mPaints;
+    }
+
+    LabelCache getLabelCache() {
+        return mLabelCache;
+    }
+
+    GlyphAdvances getCenterAdvances() {
+        return mCenterAdvances;
+    }
+
+    GlyphAdvances getSideAdvances() {
+        return mSideAdvances;
+    }
+
+    /**
+     * 获取与参数一致的刻度位图，不存在时以刻度线画笔的颜色及宽度生成
+     */
+    TickStrip getTickStrip(boolean isHorizontal, int rulerGravity, int lineMargin, int valueInterval, int textInterval,
+                           int normalLength, int longLength) {
+        for (int i = 0; i < mTickStrips.size(); i++) {
+            TickStrip strip = mTickStrips.get(i);
+            if (strip.matches(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval, normalLength, longLength))
+                return strip;
+        }
+
+        TickStrip strip = TickStrip.create(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval,
+                normalLength, longLength, mKey.mNormalWidth, mKey.mLineColor);
+        if (mTickStrips.size() >= MAX_TICK_STRIPS)
+            mTickStrips.remove(0);
+        mTickStrips.add(strip);
+        return strip;
+    }
+
+    /**
+     * 当前缓存的资源数，用于调试
+     */
+    static synchronized int poolSize() {
+        return sPool.size();
+    }
+
+    /**
+     * 决定资源能否共享的样式参数
+     */
+    static final class Key {
+        final int mLineColor;
+        final int mTextColor;
+        final int mNormalWidth;
+        final int mBoldWidth;
+        final int mLargeTextSize;
+        final int mSmallTextSize;
+        final Paint.Align mTextAlign;
+        final Scale mScale;
+        final String mUnit;
+        final int mDensityColor;
+        final int mMarkerColor;
+
+        Key(int lineColor, int textColor, int normalWidth, int boldWidth, int largeTextSize, int smallTextSize,
+            Paint.Align textAlign, Scale scale, String unit, int densityColor, int markerColor) {
+            mLineColor = lineColor;
+            mTextColor = textColor;
+            mNormalWidth = normalWidth;
+            mBoldWidth = boldWidth;
+            mLargeTextSize = largeTextSize;
+            mSmallTextSize = smallTextSize;
+            mTextAlign = textAlign;
+            mScale = scale;
+            mUnit = unit == null ? "" : unit;
+            mDensityColor = densityColor;
+            mMarkerColor = markerColor;
+        }
+
+        /**
+         * 与给定的样式参数是否一致，用于不创建新Key的情况下判断样式是否改变
+         */
+        boolean matches(int lineColor, int textColor, int normalWidth, int boldWidth, int largeTextSize, int smallTextSize,
+                        Paint.Align textAlign, Scale scale, String unit, int densityColor, int markerColor) {
+            return mLineColor == lineColor && mTextColor == textColor
+                    && mNormalWidth == normalWidth && mBoldWidth == boldWidth
+                    && mLargeTextSize == largeTextSize && mSmallTextSize == smallTextSize
+                    && mTextAlign == textAlign && mScale.equals(scale) && mUnit.equals(unit == null ? "" : unit)
+                    && mDensityColor == densityColor && mMarkerColor == markerColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return matches(key.mLineColor, key.mTextColor, key.mNormalWidth, key.mBoldWidth,
+                    key.mLargeTextSize, key.mSmallTextSize, key.mTextAlign, key.mScale, key.mUnit, key.mDensityColor, key.mMarkerColor);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mLineColor;
+            result = 31 * result + mTextColor;
+            result = 31 * result + mNormalWidth;
+            result = 31 * result + mBoldWidth;
+            result = 31 * result + mLargeTextSize;
+            result = 31 * result + mSmallTextSize;
+            result = 31 * result + mTextAlign.hashCode();
+            result = 31 * result + mScale.hashCode();
+            result = 31 * result + mUnit.hashCode();
+            result = 31 * result + mDensityColor;
+            result = 31 * result + mMarkerColor;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import android.view.TextureView;
+import android.view.VelocityTracker;
+import android.view.ViewConfiguration;
+
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * 在独立的渲染线程中滑动及绘制的刻度尺，绘制逻辑与{@link RulerView}相同
+ * 主线程繁忙（如列表绑定、图片解码）时fling仍按vsync推进，不会因onDraw被推迟而卡顿
+ * <p>
+ * 样式由xml属性设置，属性与{@link RulerView}一致；数值配置通过{@link #bind(RulerConfig)}设置
+ * 触摸事件经无锁的队列传给渲染线程，当前值由渲染线程发布为一个long的快照，主线程读取时不加锁
+ * 不支持缩放、标记、数据分布及无障碍虚拟节点，需要时使用{@link RulerView}
+ */
+public class RulerSurfaceView extends TextureView implements TextureView.SurfaceTextureListener {
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    //样式，解析结果不可修改，可直接交给渲染线程
+    private final RulerAttributes mAttributes;
+    //主线程中的数值配置，用于换算及渲染线程启动时的初始值，当前值以快照为准
+    private final RulerCore mCore = new RulerCore();
+    private String mUnit;
+    private boolean mOpenCorrection;
+    private int mFlingSnap;
+
+    //当前值的快照，单位值左移一位，最低位表示是否已停止
+    //渲染线程运行时只由渲染线程写入，未运行时只由主线程写入
+    private final AtomicLong mSnapshot = new AtomicLong();
+    //快照对应的直接设置次数，与快照由同一线程写入，先写快照再写此值
+    private final AtomicInteger mSnapshotGeneration = new AtomicInteger();
+    //主线程直接设置数值的次数，快照的次数落后时说明渲染线程尚未应用最后一次设置
+    private int mGeneration;
+    //Surface可用期间存在
+    private RulerRenderThread mRenderThread;
+
+    private VelocityTracker mVelocityTracker;
+    private int mMaximumVelocity, mMinimumVelocity;
+    //测量垂直尺宽度时使用，与RulerView一样按文字缓存及字符宽度表测量，共享资源在关联窗口期间持有
+    private final RulerRenderer mMeasureRenderer = new RulerRenderer(mCore, null);
+    private final Paint.Align mTextAlign;
+    private RulerResources mMeasureResources;
+    private int mDisplayWidth;
+    private int mDisplayHeight;
+
+    private OnValueChangeListener mListener;
+    //最后一次回调的单位值
+    private long mChangingUnitValue;
+    private long mSettledUnitValue;
+    //快照改变后合并为一次主线程回调
+    private final AtomicBoolean mNotifyQueued = new AtomicBoolean();
+    private final Runnable mNotifyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            //先清除标记再读取，之后的发布会重新提交
+            mNotifyQueued.set(false);
+            //先读取次数再读取快照，次数一致时快照不早于最后一次设置；
+            //落后时丢弃，渲染线程应用设置后会重新发布
+            if (mSnapshotGeneration.get() == mGeneration)
+                dispatchValue(mSnapshot.get());
+        }
+    };
+    private final Runnable mOnPublish = new Runnable() {
+        @Override
+        public void run() {
+            if (mNotifyQueued.compareAndSet(false, true))
+                sMainHandler.post(mNotifyRunnable);
+        }
+    };
+
+    public RulerSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public RulerSurfaceView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RulerSurfaceView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        RulerAttributes a = RulerAttributes.obtain(context, attrs, defStyleAttr);
+        mAttributes = a;
+
+        mUnit = a.mUnit;
+        mCore.setScale(a.mScale);
+        mCore.setValueInterval(a.mValueInterval);
+        mCore.setTextInterval(a.mTextInterval);
+        mCore.setMaxValue(a.mMaxValue);
+        mCore.setMinValue(a.mMinValue);
+        mCore.setCurrentValue(a.mValue);
+        mOpenCorrection = a.mOpenCorrection;
+        mFlingSnap = a.mFlingSnap;
+        resetSnapshot(mCore.getCurrentUnitValue());
+
+        mTextAlign = RulerLayout.of(a.mIsHorizontal, a.mRulerGravity).getTextAlign();
+        DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
+        mDisplayHeight = displayMetrics.heightPixels;
+        mDisplayWidth = displayMetrics.widthPixels;
+
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+        mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
+
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        RulerAttributes a = mAttributes;
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = MeasureSpec.getSize(heightMeasureSpec);
+
+        //与RulerView的计算方式一致
+        if (a.mIsHorizontal) {
+            if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY)
+                width = mDisplayWidth;
+            if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.EXACTLY)
+                height = a.mMaxLength + a.mTextValueMargin * 3 + a.mLargeTextSize;
+        } else {
+            if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY)
+                width = a.mMaxLength + a.mTextValueMargin * 3
+                        + (int) measureMaxValueText();
+            if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.EXACTLY)
+                height = mDisplayHeight;
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        //此前主线程写入的快照在线程启动前可见，之后由渲染线程写入
+        RulerRenderThread thread = new RulerRenderThread(getContext(), mAttributes, mSnapshot, mSnapshotGeneration, mOnPublish);
+        thread.startAndPrepare();
+        mRenderThread = thread;
+        syncValues(getCurrentUnitValue());
+        thread.setScrollOptions(mOpenCorrection, mFlingSnap);
+        thread.setSurface(surface, width, height);
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        if (mRenderThread != null)
+            mRenderThread.setSize(width, height);
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        //等待渲染线程释放Surface后才允许回收SurfaceTexture，之后快照重新由主线程写入
+        if (mRenderThread != null) {
+            mRenderThread.quitAndWait();
+            mRenderThread = null;
+        }
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+
+    /**
+     * 最大值以中间文字画笔绘制时的宽度，未关联窗口时临时引用共享资源
+     */
+    private float measureMaxValueText() {
+        boolean temporary = mMeasureResources == null;
+        acquireMeasureResources();
+        float width = mMeasureRenderer.measureCenterText(mCore.getMaxUnitValue());
+        if (temporary)
+            releaseMeasureResources();
+        return width;
+    }
+
+    /**
+     * 引用与当前样式及换算方式对应的共享资源，与持有的资源一致时不做处理
+     */
+    private void acquireMeasureResources() {
+        RulerAttributes a = mAttributes;
+        if (mMeasureResources != null && mMeasureResources.getKey().matches(a.mLineColor, a.mTextColor, a.mNormalWidth, a.mBoldWidth,
+                a.mLargeTextSize, a.mSmallTextSize, mTextAlign, mCore.getScale(), mUnit, a.mDensityColor, a.mMarkerColor))
+            return;
+
+        RulerResources resources = RulerResources.acquire(new RulerResources.Key(a.mLineColor, a.mTextColor, a.mNormalWidth, a.mBoldWidth,
+                a.mLargeTextSize, a.mSmallTextSize, mTextAlign, mCore.getScale(), mUnit, a.mDensityColor, a.mMarkerColor));
+        if (mMeasureResources != null)
+            mMeasureResources.release();
+        mMeasureResources = resources;
+        mMeasureRenderer.setTextResources(resources.getLabelCache(), resources.getCenterAdvances(), resources.getSideAdvances());
+    }
+
+    private void releaseMeasureResources() {
+        if (mMeasureResources != null) {
+            mMeasureResources.release();
+            mMeasureResources = null;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        //只有垂直尺的宽度与文字有关
+        if (!mAttributes.mIsHorizontal)
+            acquireMeasureResources();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseMeasureResources();
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * 触摸事件只转换为手指的绝对位置写入队列，滑动计算在渲染线程中进行
+     * fling速度在主线程中计算，低于最小速度时以0传入
+     */
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        RulerRenderThread thread = mRenderThread;
+        if (thread == null)
+            return false;
+
+        if (mVelocityTracker == null)
+            mVelocityTracker = VelocityTracker.obtain();
+        mVelocityTracker.addMovement(event);
+
+        boolean isHorizontal = mAttributes.mIsHorizontal;
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                thread.offerTouch(TouchQueue.TOUCH_DOWN, isHorizontal ? event.getX() : event.getY(), 0);
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                //以仍在屏幕上的第一个手指为新的滑动起点
+                int index = event.getActionMasked() == MotionEvent.ACTION_POINTER_UP && event.getActionIndex() == 0 ? 1 : 0;
+                thread.offerTouch(TouchQueue.TOUCH_RESTART, isHorizontal ? event.getX(index) : event.getY(index), 0);
+                mVelocityTracker.clear();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                //队列满时丢弃，下一个事件的位置包含了这段位移
+                thread.offerTouch(TouchQueue.TOUCH_MOVE, isHorizontal ? event.getX() : event.getY(), 0);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+                float velocity = isHorizontal ? mVelocityTracker.getXVelocity() : mVelocityTracker.getYVelocity();
+                thread.offerTouch(TouchQueue.TOUCH_UP, isHorizontal ? event.getX() : event.getY(),
+                        Math.abs(velocity) > mMinimumVelocity ? velocity : 0);
+                mVelocityTracker.clear();
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 在主线程中按快照分发回调，与上一次回调的数值相同时不回调
+     */
+    private void dispatchValue(long snapshot) {
+        OnValueChangeListener listener = mListener;
+        if (listener == null)
+            return;
+
+        long unitValue = snapshot >> 1;
+        if ((snapshot & 1) != 0) {
+            if (unitValue != mSettledUnitValue) {
+                mSettledUnitValue = unitValue;
+                mChangingUnitValue = unitValue;
+                listener.onValueSettled(this, unitValue, mCore.toValue(unitValue));
+            }
+        } else if (unitValue != mChangingUnitValue) {
+            mChangingUnitValue = unitValue;
+            listener.onValueChanging(this, unitValue, mCore.toValue(unitValue));
+        }
+    }
+
+    /**
+     * 数值被直接设置，记为已分发，不产生回调；此前发布而尚未分发的快照都被丢弃
+     * 渲染线程未运行时由主线程写入快照
+     */
+    private void resetSnapshot(long unitValue) {
+        mChangingUnitValue = unitValue;
+        mSettledUnitValue = unitValue;
+        mGeneration++;
+        if (mRenderThread == null) {
+            mSnapshot.set(unitValue << 1 | 1);
+            mSnapshotGeneration.set(mGeneration);
+        }
+    }
+
+    /**
+     * 将主线程的数值配置交给渲染线程，正在进行的滑动被终止
+     */
+    private void syncValues(long currentUnitValue) {
+        if (mRenderThread != null)
+            mRenderThread.setValues(mCore.getScale(), mUnit, mCore.getValueInterval(), mCore.getTextInterval(),
+                    mCore.getMinUnitValue(), mCore.getMaxUnitValue(), currentUnitValue, mGeneration);
+    }
+
+    /**
+     * 一次性应用数值配置，正在进行的滑动被终止，数值改变不回调，超出范围的数值停在边界上
+     */
+    public void bind(RulerConfig config) {
+        Scale scale = config.getScale();
+        if (!scale.equals(mCore.getScale()))
+            mCore.setScale(scale);
+        mUnit = config.getUnit();
+        mCore.setValueInterval(config.getValueInterval());
+        mCore.setTextInterval(config.getTextInterval());
+        mCore.setMinValue(config.getMinValue());
+        mCore.setMaxValue(config.getMaxValue());
+        mCore.setCurrentUnitValue(mCore.clampToRange(mCore.toUnitValue(config.getValue())));
+        resetSnapshot(mCore.getCurrentUnitValue());
+        syncValues(mCore.getCurrentUnitValue());
+
+        //垂直尺的宽度与最大值的文字宽度有关
+        if (!mAttributes.mIsHorizontal)
+            requestLayout();
+    }
+
+    /**
+     * 设置数值改变的回调，在主线程中回调，滑动中按渲染线程发布的快照合并
+     * 通过{@link #setCurrentValue(double)}等方法直接设置数值时不回调
+     */
+    public void setOnValueChangeListener(OnValueChangeListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @return 渲染线程最后发布的当前值，可在任意线程中调用
+     */
+    public long getCurrentUnitValue() {
+        return mSnapshot.get() >> 1;
+    }
+
+    public double getCurrentValue() {
+        return mCore.toValue(getCurrentUnitValue());
+    }
+
+    /**
+     * 设置当前值，渲染线程运行时在其下一帧生效，正在进行的滑动被终止
+     */
+    public void setCurrentUnitValue(long currentUnitValue) {
+        mCore.setCurrentUnitValue(currentUnitValue);
+        long unitValue = mCore.getCurrentUnitValue();
+        resetSnapshot(unitValue);
+        if (mRenderThread != null)
+            mRenderThread.setCurrentUnitValue(unitValue, mGeneration);
+    }
+
+    public void setCurrentValue(double currentValue) {
+        setCurrentUnitValue(mCore.toUnitValue(currentValue));
+    }
+
+    public double getMinValue() {
+        return mCore.getMinValue();
+    }
+
+    public double getMaxValue() {
+        return mCore.getMaxValue();
+    }
+
+    public boolean isHorizontal() {
+        return mAttributes.mIsHorizontal;
+    }
+
+    public boolean isOpenCorrection() {
+        return mOpenCorrection;
+    }
+
+    public void setOpenCorrection(boolean openCorrection) {
+        mOpenCorrection = openCorrection;
+        if (mRenderThread != null)
+            mRenderThread.setScrollOptions(mOpenCorrection, mFlingSnap);
+    }
+
+    public int getFlingSnap() {
+        return mFlingSnap;
+    }
+
+    /**
+     * @param flingSnap 同{@link RulerView#setFlingSnap(int)}，没有标记，{@link RulerView#FLING_SNAP_MARKER}按任意刻度停靠
+     */
+    public void setFlingSnap(int flingSnap) {
+        mFlingSnap = flingSnap;
+        if (mRenderThread != null)
+            mRenderThread.setScrollOptions(mOpenCorrection, mFlingSnap);
+    }
+
+    public interface OnValueChangeListener {
+        /**
+         * 拖动或fling中数值改变，按渲染线程的帧合并
+         *
+         * @param unitValue 当前值对应的单位值
+         * @param value     当前值
+         */
+        void onValueChanging(RulerSurfaceView rulerView, long unitValue, double value);
+
+        /**
+         * 滑动及校准结束后数值停止改变，与上一次停止时的数值相同时不回调
+         */
+        void onValueSettled(RulerSurfaceView rulerView, long unitValue, double value);
+    }
+}
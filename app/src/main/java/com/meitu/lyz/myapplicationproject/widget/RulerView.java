@@ -1,30 +1,44 @@
 package com.meitu.lyz.myapplicationproject.widget;
 
-import android.app.Activity;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Typeface;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.Process;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.LinearOutSlowInInterpolator;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
-import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.OverScroller;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.widget.Scroller;
 
-import com.meitu.lyz.myapplicationproject.R;
-import com.meitu.lyz.myapplicationproject.util.ConvertUtils;
+import com.meitu.lyz.myapplicationproject.widget.core.LinearScale;
+import com.meitu.lyz.myapplicationproject.widget.core.LogScale;
+import com.meitu.lyz.myapplicationproject.widget.core.MarkerIndex;
+import com.meitu.lyz.myapplicationproject.widget.core.MinMaxPyramid;
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+import com.meitu.lyz.myapplicationproject.widget.core.Scale;
 
-import java.text.DecimalFormat;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
@@ -34,14 +48,25 @@ import java.text.DecimalFormat;
  * @author LYZ 2018-04-13
  */
 public class RulerView extends View {
-    private static final String TAG = "RulerView";
-
     //尺相对于整个View的位置，水平尺只能为TOP|BOTTOM，垂直尺只能为LEFT|RIGHT
     public static final int RULER_GRAVITY_TOP = 0;
     public static final int RULER_GRAVITY_BOTTOM = 1;
     public static final int RULER_GRAVITY_LEFT = 2;
     public static final int RULER_GRAVITY_RIGHT = 3;
+    //刻度值的换算方式，对数刻度的下标0对应刻度值1
+    public static final int SCALE_TYPE_LINEAR = 0;
+    public static final int SCALE_TYPE_LOG = 1;
+    //fling的停靠方式：不调整终点、停在任意刻度上、停在长刻度上、优先停在附近的标记上
+    public static final int FLING_SNAP_NONE = 0;
+    public static final int FLING_SNAP_LINE = 1;
+    public static final int FLING_SNAP_MAJOR = 2;
+    public static final int FLING_SNAP_MARKER = 3;
+    //刻度文字的显示方式：只在中间值两侧各显示一个、每隔textInterval个刻度显示一个
+    public static final int LABEL_MODE_SIDE = 0;
+    public static final int LABEL_MODE_TICKS = 1;
     private int mRulerGravity = RULER_GRAVITY_TOP;
+    //尺的方向及位置对应的布局策略
+    private RulerLayout mRulerLayout;
 
     private Context mContext;
 
@@ -49,17 +74,17 @@ public class RulerView extends View {
     private boolean mIsHorizontal = true;
     //是否开启校准
     private boolean mOpenCorrection = true;
+    //fling的停靠方式
+    private int mFlingSnap = FLING_SNAP_LINE;
+    //是否使用位图缓存绘制刻度线
+    private boolean mTickCacheEnabled = false;
+    //刻度文字的显示方式
+    private int mLabelMode = LABEL_MODE_SIDE;
 
     //刻度单位
     private String mUnit = "kg";
-    //当前刻度值
-    private double mCurrentVale;
-    //单位值
-    private double mUnitValue;
-    //长刻度的间隔
-    private int mValueInterval;
-    //刻度文字的间隔
-    private int mTextInterval;
+    //数值模型及滑动、布局计算
+    private final RulerCore mCore = new RulerCore();
 
     //中间标识线的宽度
     private int mBoldWidth = 2;
@@ -76,8 +101,6 @@ public class RulerView extends View {
     //View的宽高
     private int mMeasuredWidth;
     private int mMeasuredHeight;
-    //中间线的位置
-    private int mCenterXY;
 
     //屏幕的宽高
     private int mDisplayWidth;
@@ -86,8 +109,6 @@ public class RulerView extends View {
     //文字和刻度线的颜色
     private int mLineColor;
     private int mTextColor;
-    //刻度线的间距
-    private int mLineMargin = 8;
     //尺和刻度值文字的间距
     private int mTextValueMargin = 10;
 
@@ -96,28 +117,98 @@ public class RulerView extends View {
     //两边刻度值文字的大小
     private int mSmallTextSize = 12;
 
-    //可显示的最大刻度数
-    private int mLineItems;
-    //刻度最大最小值
-    private double mMinValue;
-    private double mMaxValue;
-    //换算后的刻度最大最小单位值
-    private int mMinUnitValue;
-    private int mMaxUnitValue;
-
-
-    //偏移值
-    private double mScrollXY;
+    //scroller边界的上限，保证坐标计算不溢出
+    private static final int MAX_FLING_DISTANCE = Integer.MAX_VALUE / 2;
     //滑动中的当前坐标值及scroller计算的当前值
     private float mLastXY, mLastScrollerXY;
 
 
-    private Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    //与样式相同的其它尺共享的画笔、刻度文字缓存、字符宽度表及刻度位图，未关联窗口时为null
+    private RulerResources mResources;
+    //绘制的目标画布，使用共享资源中的画笔
+    private final AndroidRulerCanvas mRulerCanvas = new AndroidRulerCanvas(null);
+    //刻度线所在的区域，只有偏移值改变时仅重绘该区域
+    private final Rect mRulerBand = new Rect();
+
+    //上一次绘制时的单位值及偏移值
+    private long mDrawnUnitValue = Long.MIN_VALUE;
+    private double mDrawnScrollXY;
+    //已绘制的帧数及因内容未改变而跳过的重绘次数
+    private long mFrameCount;
+    private long mSkippedFrameCount;
+    //是否已请求下一帧
+    private boolean mFrameScheduled;
+    //性能统计，为null时不统计
+    private RulerMetrics mMetrics;
+    //数值改变回调的合并及分发
+    private final ValueChangeDispatcher mValueDispatcher = new ValueChangeDispatcher(this);
+    //手指是否在屏幕上
+    private boolean mTouching;
+    //本帧第一个未处理的触摸事件的时间，及当前fling开始的时间，单位ms
+    private long mPendingTouchTime;
+    private long mFlingStartTime;
+
+    //是否外推手指在下一次vsync时的位置，以减少滑动时的跟手延迟
+    private boolean mTouchPrediction;
+    private final TouchPredictor mTouchPredictor = new TouchPredictor();
+    //预测的手指位移，及其实际叠加到偏移值中的部分，下一个触摸事件时先撤销
+    //停在边界上时实际叠加的偏移小于预测值，撤销时只撤销实际叠加的部分
+    private float mPredictedXY;
+    private double mAppliedPredictionXY;
+    //屏幕刷新的间隔，单位ms
+    private long mFrameIntervalMillis = 16;
+
+    //是否可以双指缩放刻度间距，及缩放时刻度间距的范围
+    private boolean mZoomEnabled;
+    private int mMinLineMargin;
+    private int mMaxLineMargin;
+    //缩放时相邻刻度线的最小间距，更密的刻度层级不绘制
+    private int mMinTickSpacing;
+    //缩放中未取整的刻度间距
+    private float mZoomLineMargin;
+    //未开启缩放时为null
+    private ScaleGestureDetector mScaleDetector;
+
+    //刻度上的标记及其颜色
+    private final MarkerIndex mMarkers = new MarkerIndex();
+    private int mMarkerColor;
+
+    //数据分布的颜色及最大高度
+    private int mDensityColor;
+    private int mDensityHeight;
+    //每次设置数据时加1，丢弃已过时的后台构建结果
+    private int mDensityGeneration;
+    //数据分布的金字塔在后台线程构建，所有RulerView共用一个线程
+    private static Executor sDensityExecutor;
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            RulerView.this.doFrame();
+        }
+    };
+    //滑动中因节流而未回调的数值，在间隔结束时补一帧回调
+    private final Runnable mThrottleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            scheduleFrame();
+        }
+    };
 
-    private OverScroller mScroller;
+    private Scroller mScroller;
     private VelocityTracker mVelocityTracker;
     private int mMaximumVelocity, mMinimumVelocity;
-    private DecimalFormat mDecimalFormat;
+    //刻度线及文字的绘制，文字缓存来自共享资源
+    private final RulerRenderer mRenderer = new RulerRenderer(mCore, null);
+    //刻度线的位图缓存
+    private TickStripCache mTickStripCache;
+
+    //只为可见长刻度提供虚拟节点的无障碍支持
+    private final RulerAccessibilityHelper mAccessibilityHelper;
+    private final AccessibilityManager mAccessibilityManager;
+    //上一次通知无障碍服务时的单位值
+    private long mAccessibilityUnitValue = Long.MIN_VALUE;
 
     public RulerView(Context context) {
         this(context, null);
@@ -130,8 +221,13 @@ public class RulerView extends View {
     public RulerView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         mContext = context;
-        initAttr(attrs);
+        initAttr(attrs, defStyleAttr);
         initScroller();
+
+        mAccessibilityManager = (AccessibilityManager) context.getSystemService(Context.ACCESSIBILITY_SERVICE);
+        mAccessibilityHelper = new RulerAccessibilityHelper(this, mCore);
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+        setFocusable(true);
     }
 
     @Override
@@ -153,8 +249,7 @@ public class RulerView extends View {
         } else {
             if (widthMode != MeasureSpec.EXACTLY) {
                 mMeasuredWidth = mMaxLength + mTextValueMargin * 3;
-                mPaint.setTextSize(mLargeTextSize);
-                mMeasuredWidth += mPaint.measureText(mMaxValue + mUnit);
+                mMeasuredWidth += measureMaxValueText();
             }
             if (heightMode != MeasureSpec.EXACTLY) {
                 mMeasuredHeight = mDisplayHeight;
@@ -167,368 +262,590 @@ public class RulerView extends View {
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        if (mIsHorizontal) {
-            mLineItems = mMeasuredWidth / mLineMargin;
-            mCenterXY = mMeasuredWidth / 2;
-        } else {
-            mLineItems = mMeasuredHeight / mLineMargin;
-            mCenterXY = mMeasuredHeight / 2;
-        }
+        mCore.setLength(mIsHorizontal ? mMeasuredWidth : mMeasuredHeight);
+        updateRulerLayout();
         super.onSizeChanged(w, h, oldw, oldh);
     }
 
     @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        drawCenterText(canvas);
-        drawBaseLine(canvas);
-        drawLines(canvas);
-        drawSideText(canvas);
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+            mFrameScheduled = false;
+        }
+        removeCallbacks(mThrottleRunnable);
+        if (mTickStripCache != null)
+            mTickStripCache.release();
+        releaseResources();
+
+        //释放手势状态，使View可以被RecyclerView回收后重新绑定
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        stopScrolling();
     }
 
+    /**
+     * 终止fling及校准，并停在当前刻度上
+     */
+    private void stopScrolling() {
+        if (!mScroller.isFinished()) {
+            mScroller.abortAnimation();
+            recordFlingEnd();
+        }
+        mCore.resetScroll();
+        mTouching = false;
+        mPendingTouchTime = 0;
+        mPredictedXY = 0;
+        mAppliedPredictionXY = 0;
+    }
 
-    private void initAttr(AttributeSet attrs) {
-        TypedArray typedArray = mContext.obtainStyledAttributes(attrs, R.styleable.RulerView);
-
-        mIsHorizontal = typedArray.getInt(R.styleable.RulerView_orientation, 0) == 0;
-        mUnit = typedArray.getString(R.styleable.RulerView_unit);
-        if (TextUtils.isEmpty(mUnit))
-            mUnit = "kg";
-        mUnitValue = typedArray.getInt(R.styleable.RulerView_unitValue, -1);
-        mUnitValue = Math.pow(10, mUnitValue);
-        mValueInterval = typedArray.getInt(R.styleable.RulerView_valueInterval, 5);
-        mTextInterval = typedArray.getInt(R.styleable.RulerView_textInterval, 10);
-        mMaxValue = typedArray.getFloat(R.styleable.RulerView_maxValue, 100f);
-        mMinValue = typedArray.getFloat(R.styleable.RulerView_minValue, 0f);
-        mCurrentVale = typedArray.getFloat(R.styleable.RulerView_value, (float) ((mMaxValue + mMinValue) / 2));
-
-        mDecimalFormat = new DecimalFormat(String.valueOf(mUnitValue));
-        mCurrentVale = Double.parseDouble(mDecimalFormat.format(mCurrentVale));
-        mMaxValue = Double.parseDouble(mDecimalFormat.format(mMaxValue));
-        mMinValue = Double.parseDouble(mDecimalFormat.format(mMinValue));
-        mMinUnitValue = (int) (mMinValue / mUnitValue);
-        mMaxUnitValue = (int) (mMaxValue / mUnitValue);
-
-        mLineColor = typedArray.getColor(R.styleable.RulerView_lineColor, Color.parseColor("#294383"));
-        mTextColor = typedArray.getColor(R.styleable.RulerView_textColor, Color.parseColor("#294383"));
-
-        mLineMargin = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineMargin, ConvertUtils.dp2px(mLineMargin, mContext));
-        mTextValueMargin = typedArray.getDimensionPixelOffset(R.styleable.RulerView_textValueMargin, ConvertUtils.dp2px(mTextValueMargin, mContext));
-        mBoldWidth = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineBoldWidth, ConvertUtils.dp2px(mBoldWidth, mContext));
-        mNormalWidth = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineNormalWidth, ConvertUtils.dp2px(mNormalWidth, mContext));
-
-        mMaxLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineMaxLength, ConvertUtils.dp2px(mMaxLength, mContext));
-        mNormalLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineNormalLength, ConvertUtils.dp2px(mNormalLength, mContext));
-        mLongLength = typedArray.getDimensionPixelOffset(R.styleable.RulerView_lineLongLength, ConvertUtils.dp2px(mLongLength, mContext));
-
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        //共享资源只在关联窗口期间持有，未关联窗口的View不占用缓存
+        if (mResources == null)
+            acquireResources();
+
+        Display display = getDisplay();
+        if (display != null && display.getRefreshRate() > 0)
+            mFrameIntervalMillis = Math.round(1000 / display.getRefreshRate());
+    }
 
-        mLargeTextSize = typedArray.getDimensionPixelOffset(R.styleable.RulerView_largeTextSize, ConvertUtils.sp2px(mLargeTextSize, mContext));
-        mSmallTextSize = typedArray.getDimensionPixelOffset(R.styleable.RulerView_smallTextSize, ConvertUtils.sp2px(mSmallTextSize, mContext));
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        //未关联窗口时直接绘制（如绘制到位图），临时引用共享资源，绘制后即释放
+        boolean temporary = mResources == null;
+        if (temporary)
+            acquireResources();
+        drawFrame(canvas);
+        if (temporary)
+            releaseResources();
+    }
 
-        mOpenCorrection = typedArray.getBoolean(R.styleable.RulerView_openCorrection, true);
-        mRulerGravity = typedArray.getInt(R.styleable.RulerView_rulerGravity, mIsHorizontal ? RULER_GRAVITY_TOP : RULER_GRAVITY_LEFT);
+    private void drawFrame(Canvas canvas) {
+        mFrameCount++;
+        mDrawnUnitValue = mCore.getCurrentUnitValue();
+        mDrawnScrollXY = mCore.getScrollXY();
+
+        mRulerCanvas.setCanvas(canvas);
+        RulerMetrics metrics = mMetrics;
+        if (metrics == null) {
+            mRenderer.drawDensity(mRulerCanvas);
+            mRenderer.drawCenterText(mRulerCanvas);
+            mRenderer.drawBaseLine(mRulerCanvas);
+            drawLines(canvas);
+            mRenderer.drawMarkers(mRulerCanvas);
+            mRenderer.drawLabels(mRulerCanvas);
+            return;
+        }
 
-        typedArray.recycle();
+        long start = System.nanoTime();
+        mRenderer.drawDensity(mRulerCanvas);
+        mRenderer.drawCenterText(mRulerCanvas);
+        mRenderer.drawBaseLine(mRulerCanvas);
+        long linesStart = System.nanoTime();
+        int ticks = drawLines(canvas);
+        long markersStart = System.nanoTime();
+        mRenderer.drawMarkers(mRulerCanvas);
+        long sideTextStart = System.nanoTime();
+        int labels = mRenderer.drawLabels(mRulerCanvas) + 1;
+        long end = System.nanoTime();
+
+        metrics.record(RulerMetrics.DRAW_TIME, end - start);
+        metrics.record(RulerMetrics.DRAW_LINES_TIME, markersStart - linesStart);
+        metrics.record(RulerMetrics.DRAW_MARKERS_TIME, sideTextStart - markersStart);
+        metrics.record(RulerMetrics.DRAW_SIDE_TEXT_TIME, end - sideTextStart);
+        if (ticks >= 0)
+            metrics.record(RulerMetrics.TICKS_DRAWN, ticks);
+        metrics.record(RulerMetrics.LABELS_DRAWN, labels);
+    }
 
 
-        DisplayMetrics displayMetrics = new DisplayMetrics();
-        ((Activity) mContext).getWindowManager().getDefaultDisplay().getMetrics(displayMetrics);
+    private void initAttr(AttributeSet attrs, int defStyleAttr) {
+        RulerAttributes a = RulerAttributes.obtain(mContext, attrs, defStyleAttr);
+
+        mIsHorizontal = a.mIsHorizontal;
+        mUnit = a.mUnit;
+        mCore.setScale(a.mScale);
+        mCore.setValueInterval(a.mValueInterval);
+        mCore.setTextInterval(a.mTextInterval);
+
+        mCore.setMaxValue(a.mMaxValue);
+        mCore.setMinValue(a.mMinValue);
+        mCore.setCurrentValue(a.mValue);
+        mValueDispatcher.reset(mCore.getCurrentUnitValue());
+
+        mLineColor = a.mLineColor;
+        mTextColor = a.mTextColor;
+
+        mCore.setLineMargin(a.mLineMargin);
+        mTextValueMargin = a.mTextValueMargin;
+        mBoldWidth = a.mBoldWidth;
+        mNormalWidth = a.mNormalWidth;
+
+        mMaxLength = a.mMaxLength;
+        mNormalLength = a.mNormalLength;
+        mLongLength = a.mLongLength;
+
+        mLargeTextSize = a.mLargeTextSize;
+        mSmallTextSize = a.mSmallTextSize;
+
+        mOpenCorrection = a.mOpenCorrection;
+        mFlingSnap = a.mFlingSnap;
+        mTickCacheEnabled = a.mTickCacheEnabled;
+        mLabelMode = a.mLabelMode;
+        mRenderer.setLabelMode(mLabelMode);
+        mRulerGravity = a.mRulerGravity;
+        mTouchPrediction = a.mTouchPrediction;
+        mDensityColor = a.mDensityColor;
+        mMarkerColor = a.mMarkerColor;
+        mRenderer.setMarkers(mMarkers);
+        mDensityHeight = a.mDensityHeight;
+        mMinLineMargin = a.mMinLineMargin;
+        mMaxLineMargin = a.mMaxLineMargin;
+        mMinTickSpacing = a.mMinTickSpacing;
+        setZoomEnabled(a.mZoomEnabled);
+
+        mRulerLayout = RulerLayout.of(mIsHorizontal, mRulerGravity);
+
+
+        //不依赖Activity，任意Context均可使用
+        DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
         mDisplayHeight = displayMetrics.heightPixels;
         mDisplayWidth = displayMetrics.widthPixels;
-
-        if (mIsHorizontal)
-            mPaint.setTextAlign(Paint.Align.CENTER);
-        else if (mRulerGravity == RULER_GRAVITY_LEFT)
-            mPaint.setTextAlign(Paint.Align.LEFT);
-        else if (mRulerGravity == RULER_GRAVITY_RIGHT)
-            mPaint.setTextAlign(Paint.Align.RIGHT);
     }
 
     /**
-     * 初始化scroller 使用加速度递减插值器
-     * 初始化fling速度值
+     * 样式改变后，从{@link RulerResources}中获取与当前样式一致的共享资源，并释放之前的资源
+     * 未持有资源时（未关联窗口）不获取，关联窗口时再获取
      */
-    private void initScroller() {
-
-        mMaximumVelocity = ViewConfiguration.get(mContext)
-                .getScaledMaximumFlingVelocity();
-        mMinimumVelocity = ViewConfiguration.get(mContext)
-                .getScaledMinimumFlingVelocity();
-        mScroller = new OverScroller(mContext, new LinearOutSlowInInterpolator());
+    private void updateResources() {
+        if (mResources != null)
+            acquireResources();
     }
 
     /**
-     * 绘制中间的当前数值
+     * 获取与当前样式一致的共享资源，样式未改变时不重新获取
      */
-    private void drawCenterText(Canvas canvas) {
-        String s = mCurrentVale + mUnit;
+    private void acquireResources() {
+        Paint.Align textAlign = mRulerLayout.getTextAlign();
+        if (mResources != null && mResources.getKey().matches(mLineColor, mTextColor, mNormalWidth, mBoldWidth,
+                mLargeTextSize, mSmallTextSize, textAlign, mCore.getScale(), mUnit, mDensityColor, mMarkerColor))
+            return;
 
-        mPaint.setTextSize(mLargeTextSize);
-        mPaint.setColor(mTextColor);
-        mPaint.setTypeface(Typeface.DEFAULT_BOLD);
-        mPaint.setAlpha(255);
+        RulerResources.Key key = new RulerResources.Key(mLineColor, mTextColor, mNormalWidth, mBoldWidth,
+                mLargeTextSize, mSmallTextSize, textAlign, mCore.getScale(), mUnit, mDensityColor, mMarkerColor);
 
+        RulerResources resources = RulerResources.acquire(key);
+        if (mResources != null)
+            mResources.release();
+        mResources = resources;
+        mRulerCanvas.setPaints(resources.getPaints());
+        mRenderer.setTextResources(resources.getLabelCache(), resources.getCenterAdvances(), resources.getSideAdvances());
+    }
 
-        if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_TOP)
-            canvas.drawText(s, mCenterXY, mMaxLength + mTextValueMargin + mLargeTextSize, mPaint);
-        else if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM)
-            canvas.drawText(s, mCenterXY, mMeasuredHeight - (mMaxLength + mTextValueMargin), mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_LEFT)
-            canvas.drawText(s, mMaxLength + mTextValueMargin + mSmallTextSize, mCenterXY + mLargeTextSize / 2f, mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_RIGHT)
-            canvas.drawText(s, mMeasuredWidth - (mMaxLength + mTextValueMargin), mCenterXY + mLargeTextSize / 2f, mPaint);
+    private void releaseResources() {
+        if (mResources != null) {
+            mResources.release();
+            mResources = null;
+        }
     }
 
     /**
-     * 绘制坐标文字
-     *
-     * @param alpha   透明度 [0-255]
-     * @param startXY 偏移值
-     * @param value   刻度值
+     * 最大值以中间文字画笔绘制时的宽度，未关联窗口时临时引用共享资源
      */
-    private void drawText(Canvas canvas, double value, int startXY, int alpha) {
-
-        String s = value + mUnit;
-
-        float textWidth = mPaint.measureText(s);
-        float centerTextWidth = mPaint.measureText(mCurrentVale + mUnit);
-
-        if (mIsHorizontal && Math.abs(startXY - mCenterXY) <= ((textWidth + centerTextWidth) / 2 + mSmallTextSize + mLargeTextSize))
-            return;
-        else if (!mIsHorizontal && Math.abs(startXY - mCenterXY) <= ((mSmallTextSize + mLargeTextSize) / 2 + mSmallTextSize))
-            return;
-
-        mPaint.setColor(mTextColor);
-        mPaint.setTextSize(mSmallTextSize);
-        mPaint.setTypeface(Typeface.DEFAULT);
-        mPaint.setAlpha(alpha);
-
-        if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_TOP)
-            canvas.drawText(s, startXY, mMaxLength + mTextValueMargin + mSmallTextSize, mPaint);
-        else if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM)
-            canvas.drawText(s, startXY, mMeasuredHeight - (mMaxLength + mTextValueMargin), mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_LEFT)
-            canvas.drawText(s, mMaxLength + mTextValueMargin + mSmallTextSize, startXY + mSmallTextSize / 2f, mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_RIGHT)
-            canvas.drawText(s, mMeasuredWidth - (mMaxLength + mTextValueMargin), startXY + mSmallTextSize / 2f, mPaint);
-
+    private float measureMaxValueText() {
+        boolean temporary = mResources == null;
+        if (temporary)
+            acquireResources();
+        float width = mRenderer.measureCenterText(mCore.getMaxUnitValue());
+        if (temporary)
+            releaseResources();
+        return width;
     }
 
     /**
-     * 绘制中间的基准线
+     * 尺寸或长度参数改变后，重新计算布局中的锚点及中间基准线的端点
      */
-    private void drawBaseLine(Canvas canvas) {
-
-        mPaint.setAlpha(255);
-        mPaint.setStrokeWidth(mBoldWidth);
-        mPaint.setColor(mLineColor);
-
-        if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_TOP)
-            canvas.drawLine(mCenterXY, 0, mCenterXY, mMaxLength, mPaint);
-        else if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM)
-            canvas.drawLine(mCenterXY, mMeasuredHeight, mCenterXY, mMeasuredHeight - mMaxLength, mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_LEFT)
-            canvas.drawLine(0, mCenterXY, mMaxLength, mCenterXY, mPaint);
-        else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_RIGHT)
-            canvas.drawLine(mMeasuredWidth, mCenterXY, mMeasuredWidth - mMaxLength, mCenterXY, mPaint);
+    private void updateRulerLayout() {
+        mRulerLayout.update(mMeasuredWidth, mMeasuredHeight, mMaxLength, mTextValueMargin, mLargeTextSize, mSmallTextSize);
+        mRenderer.setRulerLayout(mRulerLayout);
+        mRenderer.setLengths(mMaxLength, mNormalLength, mLongLength);
+        mRenderer.setTextSizes(mLargeTextSize, mSmallTextSize);
+        mRenderer.setDensityGeometry(mDensityHeight, RulerRenderer.densityBinWidth(mNormalWidth));
+        mRenderer.update();
+        updateRulerBand();
     }
 
     /**
-     * 绘制刻度线
+     * 只有偏移值改变时重绘的区域，包括随偏移值移动的刻度线，有标记时包括与中间标识线等长的标记，
+     * 有数据分布时包括分布的最大高度
      */
-    private void drawLines(Canvas canvas) {
-
-        mPaint.setStrokeWidth(mNormalWidth);
-
-
-        //计算中间基准线前半部分最多能绘制的刻度线数，及开始的数值
-        int halfNum = mCenterXY / mLineMargin;
-        int currentUnitValue = (int) Math.ceil(mCurrentVale / mUnitValue);
-        int startUnitValue = currentUnitValue - halfNum;
-
-        //计算开始绘制的第一条刻度线的坐标值
-        int startXY = (int) (mCenterXY - halfNum * mLineMargin - mScrollXY);
-
-        for (int i = 0; i < mLineItems; i++, startUnitValue++, startXY += mLineMargin) {
-            //若当前单位值在数值范围内则进行绘制
-            if (startUnitValue >= mMinUnitValue && startUnitValue <= mMaxUnitValue) {
-
-                //计算透明度，透明度根据距离中间基准线的位置线性计算
-                int alpha = 255 - 255 * Math.abs(startXY - mCenterXY) / mCenterXY;
-                alpha = alpha >= 0 ? alpha : 0;
-                mPaint.setColor(mLineColor);
-                mPaint.setAlpha(alpha);
-
-                if (startUnitValue % mValueInterval == 0) {
-                    //绘制长刻度线
-                    if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_TOP)
-                        canvas.drawLine(startXY, 0, startXY, mLongLength, mPaint);
-                    else if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM)
-                        canvas.drawLine(startXY, mMeasuredHeight, startXY, mMeasuredHeight - mLongLength, mPaint);
-                    else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_LEFT)
-                        canvas.drawLine(0, startXY, mLongLength, startXY, mPaint);
-                    else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_RIGHT)
-                        canvas.drawLine(mMeasuredWidth, startXY, mMeasuredWidth - mLongLength, startXY, mPaint);
-
-//                    //绘制刻度值
-//                    if (startUnitValue % mTextInterval == 0) {
-//                        drawText(canvas, startUnitValue * mUnitValue, startXY, alpha);
-//                    }
-                } else {
-                    //绘制短刻度线
-                    if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_TOP)
-                        canvas.drawLine(startXY, 0, startXY, mNormalLength, mPaint);
-                    else if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM)
-                        canvas.drawLine(startXY, mMeasuredHeight, startXY, mMeasuredHeight - mNormalLength, mPaint);
-                    else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_LEFT)
-                        canvas.drawLine(0, startXY, mNormalLength, startXY, mPaint);
-                    else if (!mIsHorizontal && mRulerGravity == RULER_GRAVITY_RIGHT)
-                        canvas.drawLine(mMeasuredWidth, startXY, mMeasuredWidth - mNormalLength, startXY, mPaint);
-
-                }
-            }
-
-
-        }
-
+    private void updateRulerBand() {
+        int depth = Math.max(mLongLength, mNormalLength);
+        if (mMarkers.size() > 0)
+            depth = Math.max(depth, mMaxLength);
+        if (mRenderer.hasDensity())
+            depth = Math.max(depth, mDensityHeight);
+        mRulerLayout.getRulerBand(depth, mRulerBand);
+    }
 
+    /**
+     * 方向或位置改变后重新选择布局策略
+     */
+    private void resolveRulerLayout() {
+        mRulerLayout = RulerLayout.of(mIsHorizontal, mRulerGravity);
+        updateRulerLayout();
+        updateResources();
     }
 
     /**
-     * 绘制两侧的刻度值
+     * 初始化scroller 校准时使用加速度递减插值器，fling使用scroller自带的减速曲线
+     * 初始化fling速度值
      */
-    private void drawSideText(Canvas canvas) {
-        int halfNum = mCenterXY / mLineMargin;
-        int currentUnitValue = (int) Math.ceil(mCurrentVale / mUnitValue);
+    private void initScroller() {
 
-        int interval = (int) Math.ceil(halfNum * 1f / mTextInterval - 1);
-        if (interval <= 0)
-            return;
-        interval *= mTextInterval;
+        mMaximumVelocity = ViewConfiguration.get(mContext)
+                .getScaledMaximumFlingVelocity();
+        mMinimumVelocity = ViewConfiguration.get(mContext)
+                .getScaledMinimumFlingVelocity();
+        mScroller = new Scroller(mContext, new LinearOutSlowInInterpolator());
+    }
 
-        int textStartXY = mCenterXY - mLineMargin * interval;
-        int value = currentUnitValue - interval;
-        if (value >= mMinUnitValue) {
-            double textValue = value * mUnitValue;
-            textValue = Double.parseDouble(mDecimalFormat.format(textValue));
-            drawText(canvas, textValue, textStartXY, 255 / 3);
+    /**
+     * 绘制刻度线，开启缓存时使用位图缓存，否则由{@link RulerRenderer}逐条绘制
+     *
+     * @return 绘制的刻度线数，使用位图缓存时返回-1
+     */
+    private int drawLines(Canvas canvas) {
+
+        //开启缓存时，平移预先绘制好的刻度位图，缓存不可用时逐条绘制
+        //缩放中刻度间距不断变化，稀疏的层级也无法使用逐刻度的位图
+        if (mTickCacheEnabled && mCore.getTickStride() == 1 && (mScaleDetector == null || !mScaleDetector.isInProgress())) {
+            if (mTickStripCache == null)
+                mTickStripCache = new TickStripCache();
+            if (mTickStripCache.prepare(mResources, mRulerLayout.isHorizontal(), mRulerLayout.getRulerGravity(), mMeasuredWidth, mMeasuredHeight, mCore.getCenterXY(),
+                    mCore.getLineMargin(), mCore.getValueInterval(), mCore.getTextInterval(), mNormalLength, mLongLength, mNormalWidth)) {
+                mTickStripCache.draw(canvas, mCore.getCurrentUnitValue(), mCore.getScrollXY(), mCore.getMinUnitValue(), mCore.getMaxUnitValue());
+                return -1;
+            }
         }
 
-        textStartXY = mCenterXY + mLineMargin * interval;
-        value = currentUnitValue + interval;
-        if (value <= mMaxUnitValue) {
-            double textValue = value * mUnitValue;
-            textValue = Double.parseDouble(mDecimalFormat.format(textValue));
-            drawText(canvas, textValue, textStartXY, 255 / 3);
-        }
+        return mRenderer.drawLines(mRulerCanvas);
     }
 
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        Log.d(TAG, "onTouchEvent: ");
+        long start = mMetrics != null ? System.nanoTime() : 0;
 
         if (mVelocityTracker == null)
             mVelocityTracker = VelocityTracker.obtain();
         mVelocityTracker.addMovement(event);
+        if (mScaleDetector != null)
+            mScaleDetector.onTouchEvent(event);
 
-        switch (event.getAction()) {
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
                 //按下屏幕时，若scroller还未停止计算，则立即终止计算
                 if (!mScroller.isFinished()) {
                     mScroller.abortAnimation();
+                    recordFlingEnd();
                 }
+                mTouching = true;
                 mLastXY = mIsHorizontal ? event.getX() : event.getY();
+                mTouchPredictor.reset(mLastXY, event.getEventTime());
+                mPredictedXY = 0;
+                mAppliedPredictionXY = 0;
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                restartDrag(event);
                 break;
             case MotionEvent.ACTION_MOVE:
-                //滑动手势
-                float distance = mIsHorizontal ? mLastXY - event.getX() : mLastXY - event.getY();
-                mLastXY = mIsHorizontal ? event.getX() : event.getY();
-                scroll(distance);
+                //缩放中不滑动，只跟踪滑动的起点
+                if (mScaleDetector != null && mScaleDetector.isInProgress())
+                    mLastXY = mIsHorizontal ? event.getX() : event.getY();
+                else
+                    onTouchMove(event);
                 break;
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
+                //撤销预测的位移，fling及校准从手指的实际位置开始
+                undoPrediction();
+
                 //当手指离开屏幕时，计算滑动速度，满足fling手势则进行相应处理，否则直接判断是否需要校准
                 mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
                 int velocityX = mIsHorizontal ? (int) mVelocityTracker.getXVelocity() : (int) mVelocityTracker.getYVelocity();
                 if (Math.abs(velocityX) > mMinimumVelocity) {
                     fling(-velocityX);
-                } else if (mOpenCorrection && mScrollXY != 0) {
-                    mScrollXY %= mLineMargin;
-                    if (mScrollXY != 0)
-                        scrollBackToCorrectPos();
+                } else if (mOpenCorrection && needsCorrection()) {
+                    scrollBackToCorrectPos();
                 }
 
+                //在下一帧判断是否已停止，以回调onValueSettled
+                mTouching = false;
+                scheduleFrame();
                 mVelocityTracker.clear();
                 break;
         }
 
+        if (mMetrics != null)
+            mMetrics.record(RulerMetrics.TOUCH_EVENT_TIME, System.nanoTime() - start);
         return true;
     }
 
-    @Override
-    public void computeScroll() {
-        Log.d(TAG, "computeScroll: ");
+    /**
+     * 手指数改变时，以仍在屏幕上的第一个手指为新的滑动起点，避免切换手指时数值跳变
+     */
+    private void restartDrag(MotionEvent event) {
+        int index = event.getActionMasked() == MotionEvent.ACTION_POINTER_UP && event.getActionIndex() == 0 ? 1 : 0;
+        undoPrediction();
+        mLastXY = mIsHorizontal ? event.getX(index) : event.getY(index);
+        mTouchPredictor.reset(mLastXY, event.getEventTime());
+        //多指的移动不计入抬起时的fling速度
+        mVelocityTracker.clear();
+    }
+
+    /**
+     * 撤销实际叠加到偏移值中的预测位移，回到手指的实际位置
+     */
+    private void undoPrediction() {
+        if (mAppliedPredictionXY != 0)
+            mCore.scroll((float) -mAppliedPredictionXY);
+        mAppliedPredictionXY = 0;
+        mPredictedXY = 0;
+    }
+
+    /**
+     * 按缩放比例修改刻度间距，当前值不变，间距取整后改变时才重绘
+     */
+    private void zoomBy(float scaleFactor) {
+        mZoomLineMargin = Math.max(mMinLineMargin, Math.min(mMaxLineMargin, mZoomLineMargin * scaleFactor));
+        int lineMargin = Math.round(mZoomLineMargin);
+        if (lineMargin == mCore.getLineMargin())
+            return;
+        mCore.setLineMargin(lineMargin);
+        mCore.normalizeScroll();
+        invalidate();
+    }
+
+    /**
+     * 滑动手势，一个事件中批量的历史采样与当前采样合并为一次偏移
+     * 开启触摸预测时，偏移值按外推的手指位置计算，下一个事件到来时替换为实际位置
+     */
+    private void onTouchMove(MotionEvent event) {
+        int historySize = event.getHistorySize();
+        float xy = mIsHorizontal ? event.getX() : event.getY();
+
+        if (mTouchPrediction) {
+            if (mMetrics != null && mPredictedXY != 0) {
+                float actualXY = historySize > 0
+                        ? (mIsHorizontal ? event.getHistoricalX(0) : event.getHistoricalY(0)) : xy;
+                mMetrics.record(RulerMetrics.PREDICTION_ERROR, Math.round(Math.abs(mLastXY + mPredictedXY - actualXY)));
+            }
+            for (int i = 0; i < historySize; i++)
+                mTouchPredictor.addSample(mIsHorizontal ? event.getHistoricalX(i) : event.getHistoricalY(i),
+                        event.getHistoricalEventTime(i));
+            mTouchPredictor.addSample(xy, event.getEventTime());
+        }
+
+        //中间的采样相互抵消，偏移只取决于首尾位置，同时撤销上一次实际叠加的预测位移
+        float distance = (float) (mLastXY - xy - mAppliedPredictionXY);
+        mLastXY = xy;
+        mCore.scroll(distance);
+        mAppliedPredictionXY = 0;
+        mPredictedXY = 0;
+        if (mTouchPrediction) {
+            mPredictedXY = mTouchPredictor.predict(event.getEventTime() + mFrameIntervalMillis);
+            if (mPredictedXY != 0)
+                mAppliedPredictionXY = mCore.scroll(-mPredictedXY);
+        }
+
+        if (mPendingTouchTime == 0)
+            mPendingTouchTime = historySize > 0 ? event.getHistoricalEventTime(0) : event.getEventTime();
+        if (mMetrics != null)
+            mMetrics.record(RulerMetrics.TOUCH_SAMPLES, historySize + 1);
+        scheduleFrame();
+    }
+
+    /**
+     * 每个vsync最多执行一次：推进scroller的计算，并在可见内容改变时才进行重绘
+     */
+    private void doFrame() {
+        mFrameScheduled = false;
         if (mScroller.computeScrollOffset()) {
 
             //根据scroller计算的值进行偏移，并记录当前scroller的偏移值
             float distance = mIsHorizontal ? mScroller.getCurrX() - mLastScrollerXY : mScroller.getCurrY() - mLastScrollerXY;
-            scroll(distance);
+            mCore.scroll(distance);
             mLastScrollerXY = mIsHorizontal ? mScroller.getCurrX() : mScroller.getCurrY();
 
             //若开启了校准且scroller计算已结束且最终的偏移值不为0，则进行校准
-            if (mOpenCorrection && mScroller.isFinished() && mScrollXY != 0) {
-                mScrollXY %= mLineMargin;
-                if (mScrollXY != 0)
-                    scrollBackToCorrectPos();
-            }
+            if (mScroller.isFinished())
+                recordFlingEnd();
+            if (mOpenCorrection && mScroller.isFinished() && needsCorrection())
+                scrollBackToCorrectPos();
+            if (!mScroller.isFinished())
+                scheduleFrame();
         }
 
+        invalidateIfChanged();
+        mPendingTouchTime = 0;
+
+        boolean settled = !mTouching && mScroller.isFinished();
+        long wait = mValueDispatcher.onFrame(mCore.getCurrentUnitValue(), mCore.getCurrentValue(),
+                settled, SystemClock.uptimeMillis());
+        if (wait > 0) {
+            removeCallbacks(mThrottleRunnable);
+            postDelayed(mThrottleRunnable, wait);
+        }
+        if (settled)
+            notifyAccessibilityIfChanged();
     }
 
     /**
-     * 计算偏移后的数值并重新计算偏移值
-     * 若当前值已为最大值或最小值则不进行偏移
+     * 停止后数值改变时通知无障碍服务，未开启无障碍服务时不做任何处理
      */
-    private void scroll(float distanceXY) {
-        Log.d(TAG, "scroll: " + distanceXY);
-        mScrollXY += distanceXY;
-        //若当前值已为最大值或最小值则不进行偏移，并将偏移值归零
-        if ((mCurrentVale == mMinValue && distanceXY <= 0) ||
-                (mCurrentVale == mMaxValue && distanceXY >= 0)) {
-            mScrollXY = 0;
-        } else {
+    private void notifyAccessibilityIfChanged() {
+        if (mAccessibilityManager == null || !mAccessibilityManager.isEnabled())
+            return;
+        long unitValue = mCore.getCurrentUnitValue();
+        if (unitValue == mAccessibilityUnitValue)
+            return;
+        mAccessibilityUnitValue = unitValue;
+        mAccessibilityHelper.invalidateRoot();
+        mAccessibilityHelper.sendEventForVirtualView(ExploreByTouchHelper.HOST_ID, AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
 
-            //计算偏移后的数值并校准格式
-            if (mScrollXY > 0) {
-                mScrollXY = Math.round(mScrollXY);
-                mCurrentVale += Math.floor(mScrollXY / mLineMargin) * mUnitValue;
-            } else {
-                mScrollXY = -Math.round(-mScrollXY);
-                mCurrentVale -= Math.floor(-mScrollXY / mLineMargin) * mUnitValue;
-            }
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        mAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+
+    /**
+     * 方向键按刻度移动，按住Shift或翻页键按长刻度移动，Home及End移动到数值范围的两端
+     */
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        int step = event.isShiftPressed() ? mCore.getValueInterval() : 1;
+        switch (keyCode) {
+            case KeyEvent.KEYCODE_DPAD_LEFT:
+                if (mIsHorizontal && stepBy(-step))
+                    return true;
+                break;
+            case KeyEvent.KEYCODE_DPAD_RIGHT:
+                if (mIsHorizontal && stepBy(step))
+                    return true;
+                break;
+            case KeyEvent.KEYCODE_DPAD_UP:
+                if (!mIsHorizontal && stepBy(-step))
+                    return true;
+                break;
+            case KeyEvent.KEYCODE_DPAD_DOWN:
+                if (!mIsHorizontal && stepBy(step))
+                    return true;
+                break;
+            case KeyEvent.KEYCODE_PAGE_UP:
+                stepBy(-mCore.getValueInterval());
+                return true;
+            case KeyEvent.KEYCODE_PAGE_DOWN:
+                stepBy(mCore.getValueInterval());
+                return true;
+            case KeyEvent.KEYCODE_MOVE_HOME:
+                stepTo(mCore.getMinUnitValue());
+                return true;
+            case KeyEvent.KEYCODE_MOVE_END:
+                stepTo(mCore.getMaxUnitValue());
+                return true;
+        }
+        return super.onKeyDown(keyCode, event);
+    }
 
-            mCurrentVale = Double.parseDouble(mDecimalFormat.format(mCurrentVale));
+    /**
+     * 从当前值移动指定的刻度数，超出数值范围时停在边界上
+     *
+     * @return 数值是否改变
+     */
+    boolean stepBy(long units) {
+        return stepTo(mCore.getStepTarget(units));
+    }
 
-            //若偏移后的值超出范围，则进行校准
-            if (mCurrentVale <= mMinValue) {
-                mCurrentVale = mMinValue;
-            } else if (mCurrentVale >= mMaxValue)
-                mCurrentVale = mMaxValue;
+    /**
+     * 移动到指定的单位值，超出数值范围时停在边界上，与滑动一样在下一帧统一重绘并回调{@link OnValueChangeListener}
+     * 正在进行的fling及校准被终止
+     *
+     * @return 数值是否改变
+     */
+    boolean stepTo(long unitValue) {
+        long current = mCore.getCurrentUnitValue();
+        stopScrolling();
+        mCore.setCurrentUnitValue(mCore.clampToRange(unitValue));
+        scheduleFrame();
+        return mCore.getCurrentUnitValue() != current;
+    }
 
-            //重新计算偏移值
-            mScrollXY %= mLineMargin;
+    /**
+     * 刻度值的文字，与绘制的文字一致，用于无障碍服务
+     */
+    CharSequence formatLabel(long unitValue) {
+        if (mResources == null)
+            return mCore.toValue(unitValue) + mUnit;
+        LabelCache cache = mResources.getLabelCache();
+        int slot = cache.get(unitValue);
+        return new String(cache.chars(slot), 0, cache.length(slot));
+    }
 
-            //若偏移后的值为最大值或最小值则不进行偏移，并将偏移值归零
-            if ((mCurrentVale == mMinValue && distanceXY <= 0) ||
-                    (mCurrentVale == mMaxValue && distanceXY >= 0)) {
-                mScrollXY = 0;
-            }
+    /**
+     * 请求在下一个vsync执行{@link #doFrame()}，同一帧内的多次请求只执行一次
+     */
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
 
+    /**
+     * 与上一次绘制的状态比较，数值改变时重绘整个View，只有偏移值改变时仅重绘刻度线所在区域，都未改变时不重绘
+     * 逐刻度显示文字时文字也随偏移值移动，偏移值改变时同样重绘整个View
+     */
+    private void invalidateIfChanged() {
+        if (mCore.getCurrentUnitValue() != mDrawnUnitValue) {
             invalidate();
+        } else if (mCore.getScrollXY() != mDrawnScrollXY) {
+            if (mLabelMode == LABEL_MODE_TICKS)
+                invalidate();
+            else
+                invalidate(mRulerBand);
+        } else {
+            mSkippedFrameCount++;
+            return;
         }
 
+        if (mMetrics != null && mPendingTouchTime != 0)
+            mMetrics.record(RulerMetrics.TOUCH_TO_INVALIDATE_LATENCY, (SystemClock.uptimeMillis() - mPendingTouchTime) * 1000000L);
+    }
 
+    /**
+     * fling结束或被打断时记录其时长
+     */
+    private void recordFlingEnd() {
+        if (mFlingStartTime != 0) {
+            if (mMetrics != null)
+                mMetrics.record(RulerMetrics.FLING_DURATION, (SystemClock.uptimeMillis() - mFlingStartTime) * 1000000L);
+            mFlingStartTime = 0;
+        }
     }
 
     /**
@@ -536,55 +853,367 @@ public class RulerView extends View {
      */
     private void fling(int velocity) {
         mLastScrollerXY = 0;
+        mFlingStartTime = SystemClock.uptimeMillis();
+        //边界以当前位置为原点计算，并限制在int范围内，数值范围再大也不会溢出
+        //fling的距离受最大速度限制，远小于该上限，因此一次fling总能到达边界或自然停止
+        int min = mCore.getDistanceToMin(MAX_FLING_DISTANCE);
+        int max = mCore.getDistanceToMax(MAX_FLING_DISTANCE);
         if (mIsHorizontal)
-            mScroller.fling(0, 0, velocity, 0, -mMaxUnitValue * mLineMargin, mMaxUnitValue * mLineMargin, 0, 0);
+            mScroller.fling(0, 0, velocity, 0, min, max, 0, 0);
         else
-            mScroller.fling(0, 0, 0, velocity, 0, 0, -mMaxUnitValue * mLineMargin, mMaxUnitValue * mLineMargin);
-        invalidate();
+            mScroller.fling(0, 0, 0, velocity, 0, 0, min, max);
+
+        //根据初速度预计的终点调整为刻度的位置，scroller按同一条减速曲线直接停在刻度上，不再需要二次校准
+        if (mFlingSnap != FLING_SNAP_NONE) {
+            int snapInterval = mFlingSnap == FLING_SNAP_MAJOR ? mCore.getValueInterval() : 1;
+            int distance = mIsHorizontal ? mScroller.getFinalX() : mScroller.getFinalY();
+            int marker = mFlingSnap == FLING_SNAP_MARKER ? nearestMarker(mCore.getTargetUnitValue(distance)) : -1;
+            distance = marker >= 0 ? mCore.getDistanceTo(mMarkers.get(marker), MAX_FLING_DISTANCE)
+                    : mCore.snapFlingDistance(distance, snapInterval, MAX_FLING_DISTANCE);
+            if (mIsHorizontal)
+                mScroller.setFinalX(distance);
+            else
+                mScroller.setFinalY(distance);
+        }
+        scheduleFrame();
 
     }
 
     /**
-     * 根据mScrollXY的值及四舍五入原则来计算校准偏移的位置
+     * 附近一个长刻度间隔内的标记，只在停靠到标记的方式下使用
+     *
+     * @return 标记的下标，不存在时返回-1
      */
-    private void scrollBackToCorrectPos() {
-        double scroll;
-        if (mScrollXY > 0) {
-            if (mScrollXY <= mLineMargin / 2)
-                scroll = -mScrollXY;
-            else {
-                scroll = mLineMargin - mScrollXY;
-            }
-        } else {
-            if (-mScrollXY <= mLineMargin / 2)
-                scroll = -mScrollXY;
-            else scroll = -(mLineMargin + mScrollXY);
-        }
+    private int nearestMarker(long unitValue) {
+        int marker = mMarkers.nearest(unitValue, mCore.getValueInterval());
+        return marker >= 0 && mCore.isInRange(mMarkers.get(marker)) ? marker : -1;
+    }
 
+    /**
+     * 将偏移值限制在一个刻度间距内，并判断是否需要校准
+     * 停靠到标记的方式下，附近有标记且不在标记上时也需要校准
+     */
+    private boolean needsCorrection() {
+        boolean scrolled = mCore.normalizeScroll();
+        if (scrolled || mFlingSnap != FLING_SNAP_MARKER)
+            return scrolled;
+        int marker = nearestMarker(mCore.getCurrentUnitValue());
+        return marker >= 0 && mMarkers.get(marker) != mCore.getCurrentUnitValue();
+    }
+
+    /**
+     * 根据偏移值及四舍五入原则来校准偏移的位置，停靠到标记的方式下优先滑动到附近的标记上
+     */
+    private void scrollBackToCorrectPos() {
+        int marker = mFlingSnap == FLING_SNAP_MARKER ? nearestMarker(mCore.getCurrentUnitValue()) : -1;
+        double scroll = marker >= 0 ? mCore.getDistanceTo(mMarkers.get(marker), MAX_FLING_DISTANCE)
+                : mCore.getCorrectionDistance();
 
-        Log.d(TAG, "scrollBackToCorrectPos: " + scroll + " mScrollXY " + mScrollXY);
         mLastScrollerXY = 0;
         if (mIsHorizontal)
             mScroller.startScroll(0, 0, (int) scroll, 0);
         else
             mScroller.startScroll(0, 0, 0, (int) scroll);
-        invalidate();
+        scheduleFrame();
+    }
+
+    /**
+     * @return 已绘制的帧数
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return 因数值及偏移值均未改变而跳过的重绘次数
+     */
+    public long getSkippedFrameCount() {
+        return mSkippedFrameCount;
+    }
+
+    public RulerMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 设置性能统计，为null时关闭统计
+     * 多个RulerView可共享同一个{@link RulerMetrics}
+     */
+    public void setMetrics(RulerMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    /**
+     * 设置数值改变的回调，回调在帧回调中合并后分发，不会在滑动计算中直接调用
+     * 通过{@link #setCurrentVale(double)}等方法直接设置数值时不回调
+     */
+    public void setOnValueChangeListener(OnValueChangeListener listener) {
+        mValueDispatcher.setListener(listener);
+    }
+
+    /**
+     * 设置执行回调的Executor，为null时在主线程中回调
+     * 应使用串行的Executor，以保证回调的顺序；Executor繁忙时未执行的回调只保留最新值
+     */
+    public void setValueChangeExecutor(Executor executor) {
+        mValueDispatcher.setExecutor(executor);
+    }
+
+    public long getValueChangeThrottle() {
+        return mValueDispatcher.getThrottleMillis();
+    }
+
+    /**
+     * 设置滑动中{@link OnValueChangeListener#onValueChanging}的最小间隔
+     *
+     * @param throttleMillis 单位ms，0表示每帧最多回调一次
+     */
+    public void setValueChangeThrottle(long throttleMillis) {
+        mValueDispatcher.setThrottleMillis(throttleMillis);
     }
 
     public boolean isHorizontal() {
         return mIsHorizontal;
     }
 
+    /**
+     * 设置沿尺绘制的数据分布，第i个数据对应单位值为originUnitValue + i的刻度
+     * 最小最大值金字塔在后台线程构建，完成后才显示；数组被直接引用而不复制，设置后不应再修改
+     * 绘制时只查询可见范围内的分组，开销与数据量无关，NaN表示缺失的数据
+     */
+    public void setDensityData(float[] data, long originUnitValue) {
+        buildDensity(data, null, originUnitValue);
+    }
+
+    /**
+     * 与{@link #setDensityData(float[], long)}相同，数据以double读取
+     */
+    public void setDensityData(double[] data, long originUnitValue) {
+        buildDensity(null, data, originUnitValue);
+    }
+
+    /**
+     * 清除数据分布，尚未完成的构建结果被丢弃
+     */
+    public void clearDensityData() {
+        mDensityGeneration++;
+        mRenderer.setDensity(null, 0);
+        updateRulerBand();
+        invalidate();
+    }
+
+    private void buildDensity(final float[] floatData, final double[] doubleData, final long originUnitValue) {
+        final int generation = ++mDensityGeneration;
+        densityExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final MinMaxPyramid density = floatData != null
+                        ? MinMaxPyramid.build(floatData) : MinMaxPyramid.build(doubleData);
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        //构建期间又设置了新的数据
+                        if (generation != mDensityGeneration)
+                            return;
+                        mRenderer.setDensity(density, originUnitValue);
+                        updateRulerBand();
+                        invalidate();
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized Executor densityExecutor() {
+        if (sDensityExecutor == null) {
+            sDensityExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "RulerDensity");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDensityExecutor;
+    }
+
+    /**
+     * 在指定的刻度值上添加标记，已存在时不重复添加
+     * 标记以有序数组保存，绘制时只查询可见范围内的标记，数千个标记也不影响每帧的开销
+     */
+    public void addMarker(double value) {
+        addMarkerUnitValue(mCore.toUnitValue(value));
+    }
+
+    public void addMarkerUnitValue(long unitValue) {
+        if (mMarkers.add(unitValue))
+            onMarkersChanged();
+    }
+
+    /**
+     * 批量添加标记，数组无需有序，添加后只重绘一次
+     */
+    public void addMarkerUnitValues(long[] unitValues) {
+        mMarkers.addAll(unitValues);
+        onMarkersChanged();
+    }
+
+    public void removeMarker(double value) {
+        removeMarkerUnitValue(mCore.toUnitValue(value));
+    }
+
+    public void removeMarkerUnitValue(long unitValue) {
+        if (mMarkers.remove(unitValue))
+            onMarkersChanged();
+    }
+
+    public void clearMarkers() {
+        mMarkers.clear();
+        onMarkersChanged();
+    }
+
+    /**
+     * 有无标记决定了偏移值改变时重绘的区域
+     */
+    private void onMarkersChanged() {
+        updateRulerBand();
+        invalidate();
+    }
+
+    public int getMarkerCount() {
+        return mMarkers.size();
+    }
+
+    public int getMarkerColor() {
+        return mMarkerColor;
+    }
+
+    public void setMarkerColor(int markerColor) {
+        mMarkerColor = markerColor;
+        updateResources();
+        invalidate();
+    }
+
+    public int getDensityColor() {
+        return mDensityColor;
+    }
+
+    public void setDensityColor(int densityColor) {
+        mDensityColor = densityColor;
+        updateResources();
+        invalidate();
+    }
+
+    public int getDensityHeight() {
+        return mDensityHeight;
+    }
+
+    public void setDensityHeight(int densityHeight) {
+        mDensityHeight = densityHeight;
+        updateRulerLayout();
+        invalidate();
+    }
+
+    public boolean isZoomEnabled() {
+        return mZoomEnabled;
+    }
+
+    /**
+     * 是否可以双指缩放刻度间距，缩放范围为[minLineMargin, maxLineMargin]
+     * 开启后刻度间距小于最小间距的刻度层级不绘制，每帧绘制的刻度数与缩放比例无关
+     */
+    public void setZoomEnabled(boolean zoomEnabled) {
+        mZoomEnabled = zoomEnabled;
+        if (zoomEnabled && mScaleDetector == null) {
+            mScaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                @Override
+                public boolean onScaleBegin(ScaleGestureDetector detector) {
+                    mZoomLineMargin = mCore.getLineMargin();
+                    return true;
+                }
+
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    zoomBy(detector.getScaleFactor());
+                    return true;
+                }
+            });
+        } else if (!zoomEnabled) {
+            mScaleDetector = null;
+        }
+        mCore.setMinTickSpacing(zoomEnabled ? mMinTickSpacing : 0);
+        invalidate();
+    }
+
+    /**
+     * 设置缩放时刻度间距的范围，当前间距超出范围时限制在范围内
+     *
+     * @param minLineMargin 单位px，不小于1
+     * @param maxLineMargin 单位px，不小于minLineMargin
+     */
+    public void setLineMarginRange(int minLineMargin, int maxLineMargin) {
+        if (minLineMargin < 1 || maxLineMargin < minLineMargin)
+            throw new IllegalArgumentException("invalid line margin range: [" + minLineMargin + ", " + maxLineMargin + "]");
+        mMinLineMargin = minLineMargin;
+        mMaxLineMargin = maxLineMargin;
+        int lineMargin = Math.max(minLineMargin, Math.min(maxLineMargin, mCore.getLineMargin()));
+        if (lineMargin != mCore.getLineMargin())
+            setLineMargin(lineMargin);
+    }
+
+    public int getMinLineMargin() {
+        return mMinLineMargin;
+    }
+
+    public int getMaxLineMargin() {
+        return mMaxLineMargin;
+    }
+
+    public boolean isTouchPrediction() {
+        return mTouchPrediction;
+    }
+
+    /**
+     * 是否在滑动时外推手指在下一次vsync时的位置，外推最多{@link TouchPredictor#MAX_PREDICTION_MILLIS}ms
+     * 可减少跟手延迟，手指急停时会有轻微的超出，预测偏差可通过{@link RulerMetrics#PREDICTION_ERROR}统计
+     */
+    public void setTouchPrediction(boolean touchPrediction) {
+        mTouchPrediction = touchPrediction;
+        undoPrediction();
+    }
+
     public double getCurrentVale() {
-        return mCurrentVale;
+        return mCore.getCurrentValue();
     }
 
     public double getMinValue() {
-        return mMinValue;
+        return mCore.getMinValue();
     }
 
     public double getMaxValue() {
-        return mMaxValue;
+        return mCore.getMaxValue();
+    }
+
+    /**
+     * @return 当前刻度的下标，即当前值对应的单位值，用于时间戳、文件偏移等超出double精度的数值
+     */
+    public long getCurrentUnitValue() {
+        return mCore.getCurrentUnitValue();
+    }
+
+    public long getMinUnitValue() {
+        return mCore.getMinUnitValue();
+    }
+
+    public long getMaxUnitValue() {
+        return mCore.getMaxUnitValue();
     }
 
     public boolean isOpenCorrection() {
@@ -592,108 +1221,211 @@ public class RulerView extends View {
     }
 
     public void setHorizontal(boolean horizontal) {
-        mIsHorizontal = horizontal;
-        requestLayout();
+        edit().setHorizontal(horizontal).apply();
     }
 
     public void setUnit(String mUnit) {
-        this.mUnit = mUnit;
+        edit().setUnit(mUnit).apply();
     }
 
     public void setCurrentVale(double mCurrentVale) {
-        this.mCurrentVale = mCurrentVale;
-        this.mCurrentVale = Double.parseDouble(mDecimalFormat.format(mCurrentVale));
+        edit().setCurrentValue(mCurrentVale).apply();
     }
 
+    /**
+     * 修改单位值的指数，已有的刻度值按新的精度重新换算
+     */
     public void setUnitValue(int mUnitValue) {
-        this.mUnitValue = Math.pow(10, mUnitValue);
-        mDecimalFormat = new DecimalFormat(String.valueOf(mUnitValue));
+        edit().setUnitExponent(mUnitValue).apply();
+    }
+
+    public Scale getScale() {
+        return mCore.getScale();
+    }
+
+    /**
+     * 修改刻度值的换算方式，如对数刻度{@link LogScale}或分段线性刻度，已有的刻度值按新的换算方式重新计算
+     * 刻度线仍等间距排列，长刻度及文字的间隔按刻度数计算
+     */
+    public void setScale(Scale scale) {
+        edit().setScale(scale).apply();
     }
 
 
     public void setLineColor(int mLineColor) {
-        this.mLineColor = mLineColor;
+        edit().setLineColor(mLineColor).apply();
     }
 
     public void setLineMargin(int mLineMargin) {
-        this.mLineMargin = mLineMargin;
+        edit().setLineMargin(mLineMargin).apply();
     }
 
     public void setBoldWidth(int mBoldWidth) {
-        this.mBoldWidth = mBoldWidth;
+        edit().setBoldWidth(mBoldWidth).apply();
     }
 
     public void setNormalWidth(int mNormalWidth) {
-        this.mNormalWidth = mNormalWidth;
+        edit().setNormalWidth(mNormalWidth).apply();
     }
 
     public void setMaxLength(int mMaxLength) {
-        this.mMaxLength = mMaxLength;
-        requestLayout();
+        edit().setMaxLength(mMaxLength).apply();
     }
 
     public void setNormalLength(int mNormalLength) {
-        this.mNormalLength = mNormalLength;
-        requestLayout();
+        edit().setNormalLength(mNormalLength).apply();
     }
 
     public void setLongLength(int mLongLength) {
-        this.mLongLength = mLongLength;
-        requestLayout();
+        edit().setLongLength(mLongLength).apply();
     }
 
     public void setTextColor(int mTextColor) {
-        this.mTextColor = mTextColor;
+        edit().setTextColor(mTextColor).apply();
     }
 
     public void setTextValueMargin(int mTextValueMargin) {
-        this.mTextValueMargin = mTextValueMargin;
-        requestLayout();
+        edit().setTextValueMargin(mTextValueMargin).apply();
     }
 
     public void setLargeTextSize(int mLargeTextSize) {
-        this.mLargeTextSize = mLargeTextSize;
-        requestLayout();
+        edit().setLargeTextSize(mLargeTextSize).apply();
     }
 
     public void setSmallTextSize(int mSmallTextSize) {
-        this.mSmallTextSize = mSmallTextSize;
-        requestLayout();
+        edit().setSmallTextSize(mSmallTextSize).apply();
     }
 
     public void setMinValue(double mMinValue) {
-        this.mMinValue = mMinValue;
-        this.mMinValue = Double.parseDouble(mDecimalFormat.format(mMinValue));
-        mMinUnitValue = (int) (mMinValue / mUnitValue);
+        edit().setMinValue(mMinValue).apply();
     }
 
     public void setMaxValue(double mMaxValue) {
-        this.mMaxValue = mMaxValue;
-        this.mMaxValue = Double.parseDouble(mDecimalFormat.format(mMaxValue));
-        mMaxUnitValue = (int) (mMaxValue / mUnitValue);
+        edit().setMaxValue(mMaxValue).apply();
+    }
+
+    /**
+     * 直接以单位值设置当前值，不经过double换算
+     * 单位值限制在[{@link RulerCore#MIN_UNIT_VALUE}, {@link RulerCore#MAX_UNIT_VALUE}]内
+     */
+    public void setCurrentUnitValue(long currentUnitValue) {
+        mCore.setCurrentUnitValue(currentUnitValue);
+        mValueDispatcher.reset(mCore.getCurrentUnitValue());
+        invalidate();
+    }
+
+    /**
+     * 一次性应用数值配置，用于RecyclerView等复用View的场景
+     * 正在进行的滑动被终止，数值改变不回调；配置中的对象被直接引用，样式不变时不产生新对象
+     * 数值范围已由{@link RulerConfig#setRange(double, double)}校验，超出范围的数值停在边界上
+     */
+    public void bind(RulerConfig config) {
+        stopScrolling();
+
+        Scale scale = config.getScale();
+        if (!scale.equals(mCore.getScale()))
+            mCore.setScale(scale);
+        mUnit = config.getUnit();
+        mCore.setValueInterval(config.getValueInterval());
+        mCore.setTextInterval(config.getTextInterval());
+        mCore.setMinValue(config.getMinValue());
+        mCore.setMaxValue(config.getMaxValue());
+        mCore.setCurrentUnitValue(mCore.clampToRange(mCore.toUnitValue(config.getValue())));
+        mValueDispatcher.reset(mCore.getCurrentUnitValue());
+
+        updateResources();
+        //垂直尺的宽度与最大值的文字宽度有关
+        if (!mIsHorizontal)
+            requestLayout();
+        invalidate();
+    }
+
+    /**
+     * 直接以单位值设置数值范围，不经过double换算
+     */
+    public void setUnitRange(long minUnitValue, long maxUnitValue) {
+        mCore.setMinUnitValue(minUnitValue);
+        mCore.setMaxUnitValue(maxUnitValue);
+        if (!mIsHorizontal)
+            requestLayout();
+        invalidate();
     }
 
     public void setOpenCorrection(boolean openCorrection) {
         this.mOpenCorrection = openCorrection;
     }
 
+    public int getFlingSnap() {
+        return mFlingSnap;
+    }
+
+    /**
+     * 设置fling的停靠方式，{@link #FLING_SNAP_LINE}及{@link #FLING_SNAP_MAJOR}在fling开始时即确定停靠的刻度，
+     * 以一段减速动画直接到达，{@link #FLING_SNAP_NONE}则在fling结束后按是否开启校准再校准
+     * {@link #FLING_SNAP_MARKER}在预计的终点附近一个长刻度间隔内有标记时停在标记上，否则停在任意刻度上，
+     * 开启校准时松手后的校准同样优先停在附近的标记上
+     */
+    public void setFlingSnap(int flingSnap) {
+        this.mFlingSnap = flingSnap;
+    }
+
+    public int getLabelMode() {
+        return mLabelMode;
+    }
+
+    /**
+     * 设置刻度文字的显示方式，{@link #LABEL_MODE_TICKS}只布局可见范围内的文字，
+     * 并隐藏与中间文字或相邻文字重叠的文字
+     */
+    public void setLabelMode(int labelMode) {
+        this.mLabelMode = labelMode;
+        mRenderer.setLabelMode(labelMode);
+        invalidate();
+    }
+
+    public boolean isTickCacheEnabled() {
+        return mTickCacheEnabled;
+    }
+
+    /**
+     * 是否使用位图缓存绘制刻度线，开启后每帧只需一次绘制调用
+     */
+    public void setTickCacheEnabled(boolean tickCacheEnabled) {
+        this.mTickCacheEnabled = tickCacheEnabled;
+        if (!tickCacheEnabled && mTickStripCache != null)
+            mTickStripCache.release();
+        invalidate();
+    }
+
     public int getRulerGravity() {
         return mRulerGravity;
     }
 
     public void setRulerGravity(int mRulerGravity) {
-        this.mRulerGravity = mRulerGravity;
-        requestLayout();
+        edit().setRulerGravity(mRulerGravity).apply();
     }
 
-
     public void setValueInterval(int mValueInterval) {
-        this.mValueInterval = mValueInterval;
+        edit().setValueInterval(mValueInterval).apply();
     }
 
-
     public void setTextInterval(int mTextInterval) {
-        this.mTextInterval = mTextInterval;
+        edit().setTextInterval(mTextInterval).apply();
+    }
+
+    /**
+     * 开始一组属性修改，调用{@link Editor#apply()}后一次性生效
+     * 所有派生的状态只重新计算一次，只有影响测量结果的属性改变时才重新布局，否则只重绘
+     * <pre>
+     * rulerView.edit()
+     *         .setMaxLength(30)
+     *         .setLargeTextSize(20)
+     *         .setRange(0, 200)
+     *         .apply();
+     * </pre>
+     */
+    public Editor edit() {
+        return new Editor();
     }
 
     /**
@@ -704,7 +1436,7 @@ public class RulerView extends View {
     protected Parcelable onSaveInstanceState() {
         Parcelable superInstanceState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superInstanceState);
-        ss.setCurrentVale(mCurrentVale);
+        ss.setCurrentUnitValue(mCore.getCurrentUnitValue());
         return ss;
     }
 
@@ -716,17 +1448,374 @@ public class RulerView extends View {
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
 
-        mCurrentVale = ss.getCurrentVale();
+        mCore.setCurrentUnitValue(ss.getCurrentUnitValue());
+        mValueDispatcher.reset(mCore.getCurrentUnitValue());
+    }
+
+
+    /**
+     * 数值改变的回调，在主线程或{@link #setValueChangeExecutor(Executor)}设置的Executor中执行
+     */
+    public interface OnValueChangeListener {
+        /**
+         * 拖动或fling中数值改变，按帧或{@link #setValueChangeThrottle(long)}设置的间隔合并
+         *
+         * @param unitValue 当前值对应的单位值
+         * @param value     当前值
+         */
+        void onValueChanging(RulerView rulerView, long unitValue, double value);
+
+        /**
+         * 滑动及校准结束后数值停止改变，与上一次停止时的数值相同时不回调
+         */
+        void onValueSettled(RulerView rulerView, long unitValue, double value);
+    }
+
+
+    /**
+     * 属性的批量修改，由{@link #edit()}创建，修改只记录在Editor中，{@link #apply()}时统一校验并生效
+     */
+    public final class Editor {
+
+        private static final int HORIZONTAL = 1;
+        private static final int RULER_GRAVITY = 1 << 1;
+        private static final int UNIT = 1 << 2;
+        private static final int SCALE = 1 << 3;
+        private static final int MIN_VALUE = 1 << 4;
+        private static final int MAX_VALUE = 1 << 5;
+        private static final int CURRENT_VALUE = 1 << 6;
+        private static final int VALUE_INTERVAL = 1 << 7;
+        private static final int TEXT_INTERVAL = 1 << 8;
+        private static final int LINE_MARGIN = 1 << 9;
+        private static final int LINE_COLOR = 1 << 10;
+        private static final int TEXT_COLOR = 1 << 11;
+        private static final int BOLD_WIDTH = 1 << 12;
+        private static final int NORMAL_WIDTH = 1 << 13;
+        private static final int MAX_LENGTH = 1 << 14;
+        private static final int NORMAL_LENGTH = 1 << 15;
+        private static final int LONG_LENGTH = 1 << 16;
+        private static final int TEXT_VALUE_MARGIN = 1 << 17;
+        private static final int LARGE_TEXT_SIZE = 1 << 18;
+        private static final int SMALL_TEXT_SIZE = 1 << 19;
+
+        //已修改的属性
+        private int mChanged;
+
+        private boolean mHorizontal;
+        private int mGravity;
+        private String mNewUnit;
+        private Scale mScale;
+        private double mMinValue;
+        private double mMaxValue;
+        private double mCurrentValue;
+        private int mValueInterval;
+        private int mTextInterval;
+        private int mLineMargin;
+        private int mNewLineColor;
+        private int mNewTextColor;
+        private int mNewBoldWidth;
+        private int mNewNormalWidth;
+        private int mNewMaxLength;
+        private int mNewNormalLength;
+        private int mNewLongLength;
+        private int mNewTextValueMargin;
+        private int mNewLargeTextSize;
+        private int mNewSmallTextSize;
+
+        private Editor() {
+        }
+
+        public Editor setHorizontal(boolean horizontal) {
+            mHorizontal = horizontal;
+            mChanged |= HORIZONTAL;
+            return this;
+        }
+
+        public Editor setRulerGravity(int rulerGravity) {
+            mGravity = rulerGravity;
+            mChanged |= RULER_GRAVITY;
+            return this;
+        }
+
+        public Editor setUnit(String unit) {
+            mNewUnit = unit;
+            mChanged |= UNIT;
+            return this;
+        }
+
+        /**
+         * 已有的刻度值按新的换算方式重新计算，同时设置的数值按新的换算方式换算
+         */
+        public Editor setScale(Scale scale) {
+            if (scale == null)
+                throw new IllegalArgumentException("scale == null");
+            mScale = scale;
+            mChanged |= SCALE;
+            return this;
+        }
+
+        /**
+         * 使用线性刻度，单位值为10^unitExponent
+         */
+        public Editor setUnitExponent(int unitExponent) {
+            return setScale(new LinearScale(unitExponent));
+        }
+
+        public Editor setMinValue(double minValue) {
+            mMinValue = minValue;
+            mChanged |= MIN_VALUE;
+            return this;
+        }
+
+        public Editor setMaxValue(double maxValue) {
+            mMaxValue = maxValue;
+            mChanged |= MAX_VALUE;
+            return this;
+        }
+
+        public Editor setRange(double minValue, double maxValue) {
+            return setMinValue(minValue).setMaxValue(maxValue);
+        }
+
+        /**
+         * 直接设置的数值不回调{@link OnValueChangeListener}
+         */
+        public Editor setCurrentValue(double currentValue) {
+            mCurrentValue = currentValue;
+            mChanged |= CURRENT_VALUE;
+            return this;
+        }
+
+        public Editor setValueInterval(int valueInterval) {
+            mValueInterval = valueInterval;
+            mChanged |= VALUE_INTERVAL;
+            return this;
+        }
+
+        public Editor setTextInterval(int textInterval) {
+            mTextInterval = textInterval;
+            mChanged |= TEXT_INTERVAL;
+            return this;
+        }
+
+        public Editor setLineMargin(int lineMargin) {
+            mLineMargin = lineMargin;
+            mChanged |= LINE_MARGIN;
+            return this;
+        }
+
+        public Editor setLineColor(int lineColor) {
+            mNewLineColor = lineColor;
+            mChanged |= LINE_COLOR;
+            return this;
+        }
+
+        public Editor setTextColor(int textColor) {
+            mNewTextColor = textColor;
+            mChanged |= TEXT_COLOR;
+            return this;
+        }
+
+        public Editor setBoldWidth(int boldWidth) {
+            mNewBoldWidth = boldWidth;
+            mChanged |= BOLD_WIDTH;
+            return this;
+        }
+
+        public Editor setNormalWidth(int normalWidth) {
+            mNewNormalWidth = normalWidth;
+            mChanged |= NORMAL_WIDTH;
+            return this;
+        }
+
+        public Editor setMaxLength(int maxLength) {
+            mNewMaxLength = maxLength;
+            mChanged |= MAX_LENGTH;
+            return this;
+        }
+
+        public Editor setNormalLength(int normalLength) {
+            mNewNormalLength = normalLength;
+            mChanged |= NORMAL_LENGTH;
+            return this;
+        }
+
+        public Editor setLongLength(int longLength) {
+            mNewLongLength = longLength;
+            mChanged |= LONG_LENGTH;
+            return this;
+        }
+
+        public Editor setTextValueMargin(int textValueMargin) {
+            mNewTextValueMargin = textValueMargin;
+            mChanged |= TEXT_VALUE_MARGIN;
+            return this;
+        }
+
+        public Editor setLargeTextSize(int largeTextSize) {
+            mNewLargeTextSize = largeTextSize;
+            mChanged |= LARGE_TEXT_SIZE;
+            return this;
+        }
+
+        public Editor setSmallTextSize(int smallTextSize) {
+            mNewSmallTextSize = smallTextSize;
+            mChanged |= SMALL_TEXT_SIZE;
+            return this;
+        }
+
+        private boolean has(int property) {
+            return (mChanged & property) != 0;
+        }
+
+        /**
+         * 校验并应用所有修改，每个派生状态只重新计算一次
+         *
+         * @throws IllegalArgumentException 间距或间隔不为正数、尺寸为负数，或同时修改的范围中最小值大于最大值
+         */
+        public void apply() {
+            validate();
+
+            //是否需要重新测量、重新选择布局策略、重新计算锚点、更换共享资源及重绘
+            boolean remeasure = false;
+            boolean relayout = false;
+            boolean geometry = false;
+            boolean style = false;
+            boolean redraw = false;
+
+            if (has(HORIZONTAL) && mHorizontal != mIsHorizontal) {
+                mIsHorizontal = mHorizontal;
+                remeasure = relayout = true;
+            }
+            if (has(RULER_GRAVITY) && mGravity != mRulerGravity) {
+                mRulerGravity = mGravity;
+                relayout = true;
+            }
+
+            //数值的换算方式或单位改变时，垂直尺的宽度随最大值的文字宽度改变
+            if (has(SCALE) && !mScale.equals(mCore.getScale())) {
+                mCore.setScale(mScale);
+                style = redraw = true;
+                remeasure |= !mIsHorizontal;
+            }
+            if (has(UNIT) && !TextUtils.equals(mNewUnit, mUnit)) {
+                mUnit = mNewUnit;
+                style = true;
+                remeasure |= !mIsHorizontal;
+            }
+            if (has(MIN_VALUE)) {
+                mCore.setMinValue(mMinValue);
+                redraw = true;
+            }
+            if (has(MAX_VALUE)) {
+                mCore.setMaxValue(mMaxValue);
+                redraw = true;
+                remeasure |= !mIsHorizontal;
+            }
+            if (has(CURRENT_VALUE)) {
+                mCore.setCurrentValue(mCurrentValue);
+                redraw = true;
+            }
+            if (has(SCALE | CURRENT_VALUE))
+                mValueDispatcher.reset(mCore.getCurrentUnitValue());
+            if (has(VALUE_INTERVAL) && mValueInterval != mCore.getValueInterval()) {
+                mCore.setValueInterval(mValueInterval);
+                redraw = true;
+            }
+            if (has(TEXT_INTERVAL) && mTextInterval != mCore.getTextInterval()) {
+                mCore.setTextInterval(mTextInterval);
+                redraw = true;
+            }
+            if (has(LINE_MARGIN) && mLineMargin != mCore.getLineMargin()) {
+                mCore.setLineMargin(mLineMargin);
+                redraw = true;
+            }
+
+            if (has(LINE_COLOR) && mNewLineColor != mLineColor) {
+                mLineColor = mNewLineColor;
+                style = true;
+            }
+            if (has(TEXT_COLOR) && mNewTextColor != mTextColor) {
+                mTextColor = mNewTextColor;
+                style = true;
+            }
+            if (has(BOLD_WIDTH) && mNewBoldWidth != mBoldWidth) {
+                mBoldWidth = mNewBoldWidth;
+                style = true;
+            }
+            //数据分布的分组宽度随刻度线的宽度改变
+            if (has(NORMAL_WIDTH) && mNewNormalWidth != mNormalWidth) {
+                mNormalWidth = mNewNormalWidth;
+                geometry = style = true;
+            }
+
+            //中间标识线的长度、文字间距及中间文字的大小决定测量的高度或宽度
+            if (has(MAX_LENGTH) && mNewMaxLength != mMaxLength) {
+                mMaxLength = mNewMaxLength;
+                remeasure = geometry = true;
+            }
+            if (has(NORMAL_LENGTH) && mNewNormalLength != mNormalLength) {
+                mNormalLength = mNewNormalLength;
+                geometry = true;
+            }
+            if (has(LONG_LENGTH) && mNewLongLength != mLongLength) {
+                mLongLength = mNewLongLength;
+                geometry = true;
+            }
+            if (has(TEXT_VALUE_MARGIN) && mNewTextValueMargin != mTextValueMargin) {
+                mTextValueMargin = mNewTextValueMargin;
+                remeasure = geometry = true;
+            }
+            if (has(LARGE_TEXT_SIZE) && mNewLargeTextSize != mLargeTextSize) {
+                mLargeTextSize = mNewLargeTextSize;
+                remeasure = geometry = style = true;
+            }
+            if (has(SMALL_TEXT_SIZE) && mNewSmallTextSize != mSmallTextSize) {
+                mSmallTextSize = mNewSmallTextSize;
+                geometry = style = true;
+            }
+            mChanged = 0;
+
+            if (relayout) {
+                resolveRulerLayout();
+            } else {
+                if (style)
+                    updateResources();
+                if (geometry)
+                    updateRulerLayout();
+            }
+
+            if (remeasure)
+                requestLayout();
+            else if (relayout || geometry || style || redraw)
+                invalidate();
+        }
+
+        private void validate() {
+            if (has(LINE_MARGIN) && mLineMargin <= 0)
+                throw new IllegalArgumentException("lineMargin must be positive: " + mLineMargin);
+            if (has(VALUE_INTERVAL) && mValueInterval <= 0)
+                throw new IllegalArgumentException("valueInterval must be positive: " + mValueInterval);
+            if (has(TEXT_INTERVAL) && mTextInterval <= 0)
+                throw new IllegalArgumentException("textInterval must be positive: " + mTextInterval);
+            if (has(MIN_VALUE) && has(MAX_VALUE) && mMinValue > mMaxValue)
+                throw new IllegalArgumentException("minValue " + mMinValue + " > maxValue " + mMaxValue);
+            if ((has(BOLD_WIDTH) && mNewBoldWidth < 0) || (has(NORMAL_WIDTH) && mNewNormalWidth < 0)
+                    || (has(MAX_LENGTH) && mNewMaxLength < 0) || (has(NORMAL_LENGTH) && mNewNormalLength < 0)
+                    || (has(LONG_LENGTH) && mNewLongLength < 0) || (has(TEXT_VALUE_MARGIN) && mNewTextValueMargin < 0)
+                    || (has(LARGE_TEXT_SIZE) && mNewLargeTextSize < 0) || (has(SMALL_TEXT_SIZE) && mNewSmallTextSize < 0))
+                throw new IllegalArgumentException("sizes must not be negative");
+        }
     }
 
 
     /**
-     * SavedState 保存{@link #mCurrentVale}
+     * SavedState 保存当前刻度值对应的单位值
      */
     static class SavedState extends BaseSavedState {
 
-        //当前刻度值
-        private double mCurrentVale;
+        //当前刻度值对应的单位值
+        private long mCurrentUnitValue;
 
         public SavedState(Parcelable superState) {
             super(superState);
@@ -734,12 +1823,12 @@ public class RulerView extends View {
 
         protected SavedState(Parcel in) {
             super(in);
-            mCurrentVale = in.readDouble();
+            mCurrentUnitValue = in.readLong();
         }
 
         @Override
         public void writeToParcel(Parcel dest, int flags) {
-            dest.writeDouble(mCurrentVale);
+            dest.writeLong(mCurrentUnitValue);
         }
 
         @Override
@@ -759,12 +1848,12 @@ public class RulerView extends View {
             }
         };
 
-        public double getCurrentVale() {
-            return mCurrentVale;
+        public long getCurrentUnitValue() {
+            return mCurrentUnitValue;
         }
 
-        public void setCurrentVale(double currentVale) {
-            mCurrentVale = currentVale;
+        public void setCurrentUnitValue(long currentUnitValue) {
+            mCurrentUnitValue = currentUnitValue;
         }
     }
 }
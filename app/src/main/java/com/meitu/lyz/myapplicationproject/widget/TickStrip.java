@@ -0,0 +1,103 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_BOTTOM;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_RIGHT;
+
+/**
+ * 预先绘制的一个周期（长刻度间隔与文字间隔的最小公倍数）的刻度线位图
+ * 生成后不再修改，由{@link RulerResources}在样式相同的尺之间共享，
+ * 与View尺寸相关的平移及透明度渐变由各自的{@link TickStripCache}处理
+ */
+final class TickStrip {
+
+    //位图沿尺方向的最大长度，超过时不生成位图
+    private static final int MAX_STRIP_LENGTH = 4096;
+
+    final boolean mIsHorizontal;
+    final int mRulerGravity;
+    final int mLineMargin;
+    final int mValueInterval;
+    final int mTextInterval;
+    final int mNormalLength;
+    final int mLongLength;
+
+    //一个周期包含的刻度数
+    final int mPeriod;
+    //周期过长或参数无效时为null
+    final Bitmap mBitmap;
+
+    private TickStrip(boolean isHorizontal, int rulerGravity, int lineMargin, int valueInterval, int textInterval,
+                      int normalLength, int longLength, int period, Bitmap bitmap) {
+        mIsHorizontal = isHorizontal;
+        mRulerGravity = rulerGravity;
+        mLineMargin = lineMargin;
+        mValueInterval = valueInterval;
+        mTextInterval = textInterval;
+        mNormalLength = normalLength;
+        mLongLength = longLength;
+        mPeriod = period;
+        mBitmap = bitmap;
+    }
+
+    boolean matches(boolean isHorizontal, int rulerGravity, int lineMargin, int valueInterval, int textInterval,
+                    int normalLength, int longLength) {
+        return mIsHorizontal == isHorizontal && mRulerGravity == rulerGravity
+                && mLineMargin == lineMargin && mValueInterval == valueInterval && mTextInterval == textInterval
+                && mNormalLength == normalLength && mLongLength == longLength;
+    }
+
+    static TickStrip create(boolean isHorizontal, int rulerGravity, int lineMargin, int valueInterval, int textInterval,
+                            int normalLength, int longLength, int normalWidth, int lineColor) {
+        int valueStep = Math.max(valueInterval, 1);
+        int textStep = Math.max(textInterval, 1);
+        long period = (long) valueStep / gcd(valueStep, textStep) * textStep;
+        int depth = Math.max(normalLength, longLength);
+        if (lineMargin <= 0 || depth <= 0 || period * lineMargin > MAX_STRIP_LENGTH)
+            return new TickStrip(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval,
+                    normalLength, longLength, 0, null);
+
+        int stripLength = (int) period * lineMargin;
+        Bitmap bitmap = isHorizontal ? Bitmap.createBitmap(stripLength, depth, Bitmap.Config.ARGB_8888)
+                : Bitmap.createBitmap(depth, stripLength, Bitmap.Config.ARGB_8888);
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(lineColor);
+        paint.setStrokeWidth(normalWidth);
+        render(new Canvas(bitmap), paint, isHorizontal, rulerGravity, (int) period, lineMargin, valueStep,
+                normalLength, longLength, depth);
+
+        return new TickStrip(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval,
+                normalLength, longLength, (int) period, bitmap);
+    }
+
+    /**
+     * 绘制一个周期的刻度线，首尾各绘制一条以保证平铺后衔接处完整
+     */
+    private static void render(Canvas canvas, Paint paint, boolean isHorizontal, int rulerGravity, int period,
+                               int lineMargin, int valueStep, int normalLength, int longLength, int depth) {
+        for (int i = 0; i <= period; i++) {
+            int pos = i * lineMargin;
+            int length = i % valueStep == 0 ? longLength : normalLength;
+            if (isHorizontal && rulerGravity == RULER_GRAVITY_BOTTOM)
+                canvas.drawLine(pos, depth, pos, depth - length, paint);
+            else if (isHorizontal)
+                canvas.drawLine(pos, 0, pos, length, paint);
+            else if (rulerGravity == RULER_GRAVITY_RIGHT)
+                canvas.drawLine(depth, pos, depth - length, pos, paint);
+            else
+                canvas.drawLine(0, pos, length, pos, paint);
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
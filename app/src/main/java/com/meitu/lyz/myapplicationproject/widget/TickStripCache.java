@@ -0,0 +1,141 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.ComposeShader;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Shader;
+
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_BOTTOM;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_RIGHT;
+
+/**
+ * 刻度线的位图缓存
+ * 一个周期的刻度线位图{@link TickStrip}由{@link RulerResources}在样式相同的尺之间共享，
+ * 绘制时通过平铺的BitmapShader加平移矩阵一次性绘制所有刻度，
+ * 透明度渐变由LinearGradient以DST_IN模式叠加
+ */
+final class TickStripCache {
+
+    private final Paint mStripPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix mMatrix = new Matrix();
+
+    private Bitmap mBitmap;
+    private BitmapShader mBitmapShader;
+    private boolean mValid;
+
+    //生成缓存时使用的参数
+    private TickStrip mStrip;
+    private RulerResources mResources;
+    private int mWidth;
+    private int mHeight;
+    private int mCenterXY;
+    private int mNormalWidth;
+
+    private boolean mIsHorizontal;
+    private int mRulerGravity;
+    private int mLineMargin;
+    //一个周期包含的刻度数
+    private int mPeriod;
+
+    /**
+     * 检查缓存是否与当前参数一致，不一致时从共享资源中重新获取刻度位图
+     *
+     * @return 缓存是否可用，周期过长时返回false
+     */
+    boolean prepare(RulerResources resources, boolean isHorizontal, int rulerGravity, int width, int height, int centerXY,
+                    int lineMargin, int valueInterval, int textInterval,
+                    int normalLength, int longLength, int normalWidth) {
+        if (mValid && mResources == resources && mWidth == width && mHeight == height && mCenterXY == centerXY
+                && mNormalWidth == normalWidth
+                && mStrip.matches(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval, normalLength, longLength))
+            return mBitmap != null;
+
+        release();
+        mValid = true;
+        mResources = resources;
+        mWidth = width;
+        mHeight = height;
+        mCenterXY = centerXY;
+        mNormalWidth = normalWidth;
+        mStrip = resources.getTickStrip(isHorizontal, rulerGravity, lineMargin, valueInterval, textInterval,
+                normalLength, longLength);
+        mIsHorizontal = isHorizontal;
+        mRulerGravity = rulerGravity;
+        mLineMargin = lineMargin;
+        mPeriod = mStrip.mPeriod;
+
+        if (centerXY <= 0 || mStrip.mBitmap == null)
+            return false;
+        mBitmap = mStrip.mBitmap;
+
+        mBitmapShader = new BitmapShader(mBitmap, isHorizontal ? Shader.TileMode.REPEAT : Shader.TileMode.CLAMP,
+                isHorizontal ? Shader.TileMode.CLAMP : Shader.TileMode.REPEAT);
+
+        //透明度与距中间基准线的距离成线性关系，与逐条绘制时一致
+        int[] colors = {0x00000000, 0xff000000, 0x00000000};
+        LinearGradient fade = isHorizontal
+                ? new LinearGradient(0, 0, centerXY * 2, 0, colors, null, Shader.TileMode.CLAMP)
+                : new LinearGradient(0, 0, 0, centerXY * 2, colors, null, Shader.TileMode.CLAMP);
+        mStripPaint.setShader(new ComposeShader(mBitmapShader, fade, PorterDuff.Mode.DST_IN));
+        return true;
+    }
+
+    /**
+     * 以当前值和偏移值平移缓存，只绘制数值范围内的部分
+     */
+    void draw(Canvas canvas, long currentUnitValue, double scrollXY, long minUnitValue, long maxUnitValue) {
+        if (mBitmap == null)
+            return;
+
+        //位图的起点对应单位值为周期整数倍的刻度
+        long base = currentUnitValue % mPeriod;
+        if (base < 0)
+            base += mPeriod;
+        float phase = (float) (mCenterXY - base * mLineMargin - scrollXY);
+
+        //数值范围两端的刻度坐标，限制在View内
+        int size = mIsHorizontal ? mWidth : mHeight;
+        float halfWidth = mNormalWidth / 2f + 1;
+        float start = (float) Math.max(-halfWidth, mCenterXY + (double) (minUnitValue - currentUnitValue) * mLineMargin - scrollXY - halfWidth);
+        float end = (float) Math.min(size + halfWidth, mCenterXY + (double) (maxUnitValue - currentUnitValue) * mLineMargin - scrollXY + halfWidth);
+        if (start >= end)
+            return;
+
+        int depth = mIsHorizontal ? mBitmap.getHeight() : mBitmap.getWidth();
+        mMatrix.reset();
+        if (mIsHorizontal && mRulerGravity == RULER_GRAVITY_BOTTOM) {
+            mMatrix.setTranslate(phase, mHeight - depth);
+            mBitmapShader.setLocalMatrix(mMatrix);
+            canvas.drawRect(start, mHeight - depth, end, mHeight, mStripPaint);
+        } else if (mIsHorizontal) {
+            mMatrix.setTranslate(phase, 0);
+            mBitmapShader.setLocalMatrix(mMatrix);
+            canvas.drawRect(start, 0, end, depth, mStripPaint);
+        } else if (mRulerGravity == RULER_GRAVITY_RIGHT) {
+            mMatrix.setTranslate(mWidth - depth, phase);
+            mBitmapShader.setLocalMatrix(mMatrix);
+            canvas.drawRect(mWidth - depth, start, mWidth, end, mStripPaint);
+        } else {
+            mMatrix.setTranslate(0, phase);
+            mBitmapShader.setLocalMatrix(mMatrix);
+            canvas.drawRect(0, start, depth, end, mStripPaint);
+        }
+    }
+
+    /**
+     * 释放对刻度位图的引用，下次绘制时重新获取，位图本身由{@link RulerResources}管理
+     */
+    void release() {
+        mValid = false;
+        mStrip = null;
+        mResources = null;
+        mBitmap = null;
+        mBitmapShader = null;
+        mStripPaint.setShader(null);
+    }
+}
@@ -0,0 +1,67 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+/**
+ * 根据触摸点的历史采样估算手指速度，并外推手指在下一次vsync时的位置
+ * 只处理滑动方向上的一维坐标，时间单位ms
+ */
+final class TouchPredictor {
+
+    //外推的最大时长，超过后误差明显增大
+    static final long MAX_PREDICTION_MILLIS = 16;
+    //相邻采样间隔超过该值时认为手指停顿过，重新开始估算速度
+    private static final long MAX_SAMPLE_GAP_MILLIS = 40;
+    //速度的平滑系数，越大越依赖最新的采样
+    private static final float SMOOTHING = 0.5f;
+
+    private float mLastXY;
+    private long mLastTime;
+    //平滑后的速度，单位px/ms
+    private float mVelocity;
+    private boolean mHasVelocity;
+
+    /**
+     * 按下时以第一个采样开始
+     */
+    void reset(float xy, long time) {
+        mLastXY = xy;
+        mLastTime = time;
+        mVelocity = 0;
+        mHasVelocity = false;
+    }
+
+    /**
+     * 加入一个采样，时间不晚于上一个采样的会被忽略
+     */
+    void addSample(float xy, long time) {
+        long dt = time - mLastTime;
+        if (dt <= 0)
+            return;
+
+        float velocity = (xy - mLastXY) / dt;
+        if (!mHasVelocity || dt > MAX_SAMPLE_GAP_MILLIS) {
+            mVelocity = velocity;
+            mHasVelocity = true;
+        } else {
+            mVelocity += (velocity - mVelocity) * SMOOTHING;
+        }
+        mLastXY = xy;
+        mLastTime = time;
+    }
+
+    /**
+     * 外推到指定时间时手指相对最后一个采样的位移
+     *
+     * @param time 目标时间，与最后一个采样的间隔限制在[0, {@link #MAX_PREDICTION_MILLIS}]内
+     * @return 尚无速度时为0
+     */
+    float predict(long time) {
+        if (!mHasVelocity)
+            return 0;
+        long lead = Math.max(0, Math.min(MAX_PREDICTION_MILLIS, time - mLastTime));
+        return mVelocity * lead;
+    }
+
+    float getVelocity() {
+        return mVelocity;
+    }
+}
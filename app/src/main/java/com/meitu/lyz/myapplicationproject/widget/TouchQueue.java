@@ -0,0 +1,100 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 主线程向渲染线程传递触摸事件的环形队列，只允许一个线程写入、一个线程读取
+ * 写入及读取都不加锁也不等待，只在写入后以lazySet发布下标，事件以基本类型数组保存，不产生新对象
+ * <p>
+ * 事件中的坐标均为手指的绝对位置，队列满时丢弃的移动事件由之后的事件补上；
+ * 移动事件不能占用最后{@link #RESERVED}个位置，按下、抬起等事件在队列被移动事件占满后仍能写入
+ */
+final class TouchQueue {
+
+    //按下、移动、手指数改变后的新起点、抬起或取消
+    static final int TOUCH_DOWN = 0;
+    static final int TOUCH_MOVE = 1;
+    static final int TOUCH_RESTART = 2;
+    static final int TOUCH_UP = 3;
+
+    //为移动以外的事件保留的位置数
+    static final int RESERVED = 8;
+
+    private final int mMask;
+    private final int[] mTypes;
+    private final float[] mXYs;
+    private final float[] mVelocities;
+
+    //下一个读取及写入的位置，只增不减，取模后为数组下标
+    private final AtomicInteger mHead = new AtomicInteger();
+    private final AtomicInteger mTail = new AtomicInteger();
+
+    //最后一个读取的事件，只在读取线程中使用
+    private float mXY;
+    private float mVelocity;
+
+    /**
+     * @param capacity 容量，向上取为2的幂，且大于{@link #RESERVED}
+     */
+    TouchQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(RESERVED * 2, capacity) - 1) << 1;
+        mMask = size - 1;
+        mTypes = new int[size];
+        mXYs = new float[size];
+        mVelocities = new float[size];
+    }
+
+    int capacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * 写入一个事件，只能在写入线程中调用
+     *
+     * @param velocity 抬起时的速度，其它事件为0
+     * @return 是否写入，队列满时返回false
+     */
+    boolean offer(int type, float xy, float velocity) {
+        int tail = mTail.get();
+        int free = capacity() - (tail - mHead.get());
+        if (free <= (type == TOUCH_MOVE ? RESERVED : 0))
+            return false;
+
+        int slot = tail & mMask;
+        mTypes[slot] = type;
+        mXYs[slot] = xy;
+        mVelocities[slot] = velocity;
+        mTail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * 读取一个事件，只能在读取线程中调用，坐标及速度由{@link #xy()}及{@link #velocity()}获取
+     *
+     * @return 事件类型，队列为空时返回-1
+     */
+    int poll() {
+        int head = mHead.get();
+        if (head == mTail.get())
+            return -1;
+
+        int slot = head & mMask;
+        int type = mTypes[slot];
+        mXY = mXYs[slot];
+        mVelocity = mVelocities[slot];
+        mHead.lazySet(head + 1);
+        return type;
+    }
+
+    float xy() {
+        return mXY;
+    }
+
+    float velocity() {
+        return mVelocity;
+    }
+
+    boolean isEmpty() {
+        return mHead.get() == mTail.get();
+    }
+}
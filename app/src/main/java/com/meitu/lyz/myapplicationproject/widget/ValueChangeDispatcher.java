@@ -0,0 +1,175 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 数值改变回调的合并及分发
+ * RulerView每帧调用一次{@link #onFrame}，滑动中按帧或按时间间隔合并为{@link RulerView.OnValueChangeListener#onValueChanging}，
+ * 停止后回调一次{@link RulerView.OnValueChangeListener#onValueSettled}
+ * <p>
+ * 设置Executor后回调在Executor中按顺序执行，尚未执行的回调只更新为最新值而不重复提交，分发过程不产生新对象
+ */
+final class ValueChangeDispatcher {
+
+    private final RulerView mRulerView;
+    private RulerView.OnValueChangeListener mListener;
+    private Executor mExecutor;
+    //滑动中两次回调的最小间隔，单位ms，0表示每帧最多一次
+    private long mThrottleMillis;
+
+    //最后一次分发的单位值，及最后一次滑动中回调的时间
+    private long mChangingUnitValue;
+    private long mSettledUnitValue;
+    private long mLastChangingTime;
+
+    private final Dispatch mDispatch = new Dispatch();
+
+    ValueChangeDispatcher(RulerView rulerView) {
+        mRulerView = rulerView;
+    }
+
+    void setListener(RulerView.OnValueChangeListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * @param executor 为null时在主线程中直接回调
+     */
+    void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    void setThrottleMillis(long throttleMillis) {
+        mThrottleMillis = Math.max(0, throttleMillis);
+    }
+
+    long getThrottleMillis() {
+        return mThrottleMillis;
+    }
+
+    /**
+     * 数值被直接设置时调用，记为已分发，不产生回调
+     */
+    void reset(long unitValue) {
+        mChangingUnitValue = unitValue;
+        mSettledUnitValue = unitValue;
+    }
+
+    /**
+     * 每帧调用一次，未设置回调时也需调用，使设置回调后不会补发此前的数值
+     *
+     * @param settled 是否已停止滑动，即手指已离开且scroller已结束
+     * @param now     当前时间，单位ms
+     * @return 因节流而未回调的数值需要在多少ms后再执行一帧才能回调，没有未回调的数值时返回0
+     * 手指在间隔内停住时不会再产生新的帧，需要由调用方按返回值补一帧
+     */
+    long onFrame(long unitValue, double value, boolean settled, long now) {
+        if (settled) {
+            if (unitValue != mSettledUnitValue) {
+                mSettledUnitValue = unitValue;
+                mChangingUnitValue = unitValue;
+                dispatch(true, unitValue, value);
+            }
+            return 0;
+        }
+
+        if (unitValue == mChangingUnitValue)
+            return 0;
+        long wait = mLastChangingTime + mThrottleMillis - now;
+        //未设置回调时不节流，只记录数值
+        if (mThrottleMillis > 0 && wait > 0 && mListener != null)
+            return wait;
+
+        mChangingUnitValue = unitValue;
+        mLastChangingTime = now;
+        dispatch(false, unitValue, value);
+        return 0;
+    }
+
+    private void dispatch(boolean settled, long unitValue, double value) {
+        RulerView.OnValueChangeListener listener = mListener;
+        if (listener == null)
+            return;
+
+        Executor executor = mExecutor;
+        if (executor == null) {
+            deliver(listener, settled, unitValue, value);
+            return;
+        }
+
+        mDispatch.add(listener, settled, unitValue, value);
+        if (mDispatch.mQueued.compareAndSet(false, true))
+            executor.execute(mDispatch);
+    }
+
+    private void deliver(RulerView.OnValueChangeListener listener, boolean settled, long unitValue, double value) {
+        if (settled)
+            listener.onValueSettled(mRulerView, unitValue, value);
+        else
+            listener.onValueChanging(mRulerView, unitValue, value);
+    }
+
+    /**
+     * 可重复提交的回调，同一时刻最多提交一次，未执行前再次分发只更新待分发的回调
+     * 待分发的回调按发生顺序保留最多两个，连续的同类回调只保留最新值，因此最后回调的总是最新的状态
+     * 多线程的Executor中也按顺序逐个回调，不会并发
+     */
+    private final class Dispatch implements Runnable {
+        private final AtomicBoolean mQueued = new AtomicBoolean();
+
+        //待分发的回调，由分发线程写入
+        private RulerView.OnValueChangeListener mPendingListener;
+        private final boolean[] mPendingSettled = new boolean[2];
+        private final long[] mPendingUnitValues = new long[2];
+        private final double[] mPendingValues = new double[2];
+        private int mPendingCount;
+
+        //正在回调的副本，只在持有mDeliverLock时使用
+        private final Object mDeliverLock = new Object();
+        private final boolean[] mSettled = new boolean[2];
+        private final long[] mUnitValues = new long[2];
+        private final double[] mValues = new double[2];
+
+        synchronized void add(RulerView.OnValueChangeListener listener, boolean settled, long unitValue, double value) {
+            mPendingListener = listener;
+            int index;
+            if (mPendingCount > 0 && mPendingSettled[mPendingCount - 1] == settled) {
+                index = mPendingCount - 1;
+            } else if (mPendingCount == 2) {
+                //两类回调交替，丢弃较早的同类回调
+                mPendingSettled[0] = mPendingSettled[1];
+                mPendingUnitValues[0] = mPendingUnitValues[1];
+                mPendingValues[0] = mPendingValues[1];
+                index = 1;
+            } else {
+                index = mPendingCount++;
+            }
+            mPendingSettled[index] = settled;
+            mPendingUnitValues[index] = unitValue;
+            mPendingValues[index] = value;
+        }
+
+        @Override
+        public void run() {
+            synchronized (mDeliverLock) {
+                //先清除标记再读取，之后的分发会重新提交，并等待本次回调结束
+                mQueued.set(false);
+                RulerView.OnValueChangeListener listener;
+                int count;
+                synchronized (this) {
+                    listener = mPendingListener;
+                    count = mPendingCount;
+                    for (int i = 0; i < count; i++) {
+                        mSettled[i] = mPendingSettled[i];
+                        mUnitValues[i] = mPendingUnitValues[i];
+                        mValues[i] = mPendingValues[i];
+                    }
+                    mPendingCount = 0;
+                }
+                for (int i = 0; i < count; i++)
+                    deliver(listener, mSettled[i], mUnitValues[i], mValues[i]);
+            }
+        }
+    }
+}
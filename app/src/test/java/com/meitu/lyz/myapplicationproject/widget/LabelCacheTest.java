@@ -0,0 +1,93 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LabelCache} 的格式化及绘制循环中的内存分配测试
+ */
+public class LabelCacheTest {
+
+    private static final int FRAMES = 10000;
+
+    @Test
+    public void format_matchesDoubleToString() {
+        assertLabel("50.0kg", 500, -1, "kg");
+        assertLabel("0.5kg", 5, -1, "kg");
+        assertLabel("-0.5kg", -5, -1, "kg");
+        assertLabel("12.34cm", 1234, -2, "cm");
+        assertLabel("12.3cm", 1230, -2, "cm");
+        assertLabel("12.0cm", 1200, -2, "cm");
+        assertLabel("0.0", 0, -1, "");
+        assertLabel("7.0", 7, 0, "");
+        assertLabel("700.0m", 7, 2, "m");
+        assertLabel("0.0m", 0, 2, "m");
+        assertLabel("-9223372036854775808.0", Long.MIN_VALUE, 0, "");
+    }
+
+    @Test
+    public void get_returnsSameSlotWhileCached() {
+        LabelCache cache = new LabelCache(8);
+        cache.setFormat(-1, "kg");
+        int slot = cache.get(500);
+        assertEquals(slot, cache.get(500));
+        assertEquals("50.0kg", text(cache, slot));
+    }
+
+    @Test
+    public void setFormat_clearsCache() {
+        LabelCache cache = new LabelCache(8);
+        cache.setFormat(-1, "kg");
+        cache.get(500);
+        cache.setFormat(-2, "lb");
+        assertEquals("5.0lb", text(cache, cache.get(500)));
+    }
+
+    /**
+     * 模拟滑动过程，每帧获取中间及两侧的刻度文字，预热后不应再分配内存
+     */
+    @Test
+    public void get_allocatesNothingAcrossFrames() {
+        LabelCache cache = new LabelCache(32);
+        cache.setFormat(-1, "kg");
+        simulateFrames(cache, FRAMES);
+
+        long overhead = allocatedBytes();
+        overhead = allocatedBytes() - overhead;
+
+        long start = allocatedBytes();
+        simulateFrames(cache, FRAMES);
+        long allocated = allocatedBytes() - start;
+
+        assertTrue("allocated " + allocated + " bytes", allocated <= overhead);
+    }
+
+    private static int simulateFrames(LabelCache cache, int frames) {
+        int sum = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            long current = frame % 2000;
+            sum += cache.length(cache.get(current));
+            sum += cache.length(cache.get(current - 50));
+            sum += cache.length(cache.get(current + 50));
+        }
+        return sum;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void assertLabel(String expected, long unitIndex, int exponent, String unit) {
+        LabelCache cache = new LabelCache(4);
+        cache.setFormat(exponent, unit);
+        assertEquals(expected, text(cache, cache.get(unitIndex)));
+    }
+
+    private static String text(LabelCache cache, int slot) {
+        return new String(cache.chars(slot), 0, cache.length(slot));
+    }
+}
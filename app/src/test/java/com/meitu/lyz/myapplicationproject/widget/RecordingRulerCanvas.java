@@ -0,0 +1,131 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import java.util.Locale;
+
+/**
+ * 记录绘制调用的{@link RulerCanvas}，用于在JVM上统计每帧的绘制调用数、画笔状态的改变，
+ * 开启记录时同时输出可与golden文件比较的绘制列表
+ * 文字宽度按每个字符为文字大小的一半估算
+ */
+class RecordingRulerCanvas implements RulerCanvas {
+
+    private static final String[] PAINT_NAMES = {"line", "baseLine", "centerText", "sideText", "density", "marker"};
+
+    private final float[] mCharWidths = new float[PAINT_COUNT];
+    private final int[] mAlphas = new int[PAINT_COUNT];
+    private final StringBuilder mLog = new StringBuilder();
+    private boolean mRecording;
+
+    private int mDrawLinesCalls;
+    private int mLines;
+    private int mDrawTextCalls;
+    private int mSetAlphaCalls;
+    private int mAlphaChanges;
+    private int mMeasureTextCalls;
+
+    RecordingRulerCanvas(int largeTextSize, int smallTextSize) {
+        mCharWidths[PAINT_CENTER_TEXT] = largeTextSize / 2f;
+        mCharWidths[PAINT_SIDE_TEXT] = smallTextSize / 2f;
+        for (int i = 0; i < PAINT_COUNT; i++)
+            mAlphas[i] = 255;
+    }
+
+    /**
+     * 是否记录绘制列表，关闭时只统计次数，不产生新对象
+     */
+    void setRecording(boolean recording) {
+        mRecording = recording;
+    }
+
+    /**
+     * 清空统计及绘制列表，画笔状态保留，与真实画笔一致
+     */
+    void reset() {
+        mDrawLinesCalls = 0;
+        mLines = 0;
+        mDrawTextCalls = 0;
+        mSetAlphaCalls = 0;
+        mAlphaChanges = 0;
+        mMeasureTextCalls = 0;
+        mLog.setLength(0);
+    }
+
+    void log(String line) {
+        mLog.append(line).append('\n');
+    }
+
+    String getLog() {
+        return mLog.toString();
+    }
+
+    int getDrawLinesCalls() {
+        return mDrawLinesCalls;
+    }
+
+    int getLines() {
+        return mLines;
+    }
+
+    int getDrawTextCalls() {
+        return mDrawTextCalls;
+    }
+
+    int getSetAlphaCalls() {
+        return mSetAlphaCalls;
+    }
+
+    int getMeasureTextCalls() {
+        return mMeasureTextCalls;
+    }
+
+    /**
+     * @return 透明度实际改变的次数
+     */
+    int getAlphaChanges() {
+        return mAlphaChanges;
+    }
+
+    @Override
+    public void setAlpha(int paint, int alpha) {
+        mSetAlphaCalls++;
+        if (mAlphas[paint] != alpha) {
+            mAlphas[paint] = alpha;
+            mAlphaChanges++;
+        }
+        if (mRecording)
+            log("alpha " + PAINT_NAMES[paint] + " " + alpha);
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, int paint) {
+        mDrawLinesCalls++;
+        mLines += count / 4;
+        if (!mRecording)
+            return;
+
+        StringBuilder sb = new StringBuilder("lines ").append(PAINT_NAMES[paint]).append(' ').append(count / 4);
+        for (int i = offset; i < offset + count; i += 4) {
+            sb.append(i == offset ? ": " : " | ")
+                    .append(format(pts[i])).append(',').append(format(pts[i + 1])).append(',')
+                    .append(format(pts[i + 2])).append(',').append(format(pts[i + 3]));
+        }
+        log(sb.toString());
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, int paint) {
+        mDrawTextCalls++;
+        if (mRecording)
+            log("text " + PAINT_NAMES[paint] + " \"" + new String(text, index, count) + "\" @" + format(x) + "," + format(y));
+    }
+
+    @Override
+    public float measureText(char[] text, int index, int count, int paint) {
+        mMeasureTextCalls++;
+        return count * mCharWidths[paint];
+    }
+
+    private static String format(float value) {
+        return String.format(Locale.US, "%.1f", value);
+    }
+}
@@ -0,0 +1,242 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import com.meitu.lyz.myapplicationproject.widget.core.MinMaxPyramid;
+import com.meitu.lyz.myapplicationproject.widget.core.RulerCore;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_BOTTOM;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_LEFT;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_RIGHT;
+import static com.meitu.lyz.myapplicationproject.widget.RulerView.RULER_GRAVITY_TOP;
+import static org.junit.Assert.*;
+
+/**
+ * {@link RulerRenderer}每帧的绘制调用数、画笔状态改变及内存分配测试，
+ * 并将每种尺的位置的绘制列表与golden文件比较
+ * <p>
+ * 绘制有意改变时，以 -Druler.updateGolden=true 运行以重新生成golden文件
+ */
+public class RulerRendererTest {
+
+    private static final int[] GRAVITIES = {RULER_GRAVITY_TOP, RULER_GRAVITY_BOTTOM, RULER_GRAVITY_LEFT, RULER_GRAVITY_RIGHT};
+    private static final String[] GRAVITY_NAMES = {"top", "bottom", "left", "right"};
+
+    private static final int LENGTH = 480;
+    private static final int DEPTH = 100;
+    private static final int LINE_MARGIN = 16;
+    private static final int MAX_LENGTH = 24;
+    private static final int NORMAL_LENGTH = 12;
+    private static final int LONG_LENGTH = 18;
+    private static final int TEXT_VALUE_MARGIN = 10;
+    private static final int LARGE_TEXT_SIZE = 16;
+    private static final int SMALL_TEXT_SIZE = 12;
+
+    private static final int FRAMES = 10000;
+
+    private final RulerCore mCore = new RulerCore();
+    private final LabelCache mLabelCache = new LabelCache(32);
+    private final RulerRenderer mRenderer = new RulerRenderer(mCore, mLabelCache);
+    private final RecordingRulerCanvas mCanvas = new RecordingRulerCanvas(LARGE_TEXT_SIZE, SMALL_TEXT_SIZE);
+
+    @Test
+    public void draw_issuesOneDrawLinesPerAlphaBucket() {
+        for (int gravity : GRAVITIES) {
+            setUp(gravity);
+            mCanvas.reset();
+            int ticks = mRenderer.draw(mCanvas);
+
+            //中间基准线一次，刻度线每个透明度分组最多一次
+            assertTrue(mCanvas.getDrawLinesCalls() <= 1 + RulerRenderer.ALPHA_BUCKETS);
+            assertEquals(ticks + 1, mCanvas.getLines());
+            assertEquals(LENGTH / LINE_MARGIN - 1, ticks);
+            //中间文字及两侧文字
+            assertEquals(3, mCanvas.getDrawTextCalls());
+            //每个刻度线分组及每个两侧文字各设置一次透明度
+            assertEquals(mCanvas.getDrawLinesCalls() - 1 + 2, mCanvas.getSetAlphaCalls());
+            //文字宽度查表计算，绘制时不测量文字
+            assertEquals(0, mCanvas.getMeasureTextCalls());
+        }
+    }
+
+    @Test
+    public void measureCenterText_matchesCanvas() {
+        setUp(RULER_GRAVITY_TOP);
+        int slot = mLabelCache.get(mCore.getMaxUnitValue());
+        float expected = mCanvas.measureText(mLabelCache.chars(slot), 0, mLabelCache.length(slot), RulerCanvas.PAINT_CENTER_TEXT);
+        assertEquals(expected, mRenderer.measureCenterText(mCore.getMaxUnitValue()), 0);
+    }
+
+    @Test
+    public void draw_skipsTicksOutsideRange() {
+        setUp(RULER_GRAVITY_TOP);
+        mCore.setCurrentValue(0);
+        mCanvas.reset();
+        int ticks = mRenderer.draw(mCanvas);
+
+        //只绘制中间及右侧的刻度，左侧没有文字
+        assertEquals(LENGTH / LINE_MARGIN / 2, ticks);
+        assertEquals(2, mCanvas.getDrawTextCalls());
+    }
+
+    @Test
+    public void tickLabels_drawnOnlyWhereTheyFit() {
+        for (int gravity : GRAVITIES) {
+            setUp(gravity);
+            mCore.setTextInterval(5);
+            mRenderer.setLabelMode(RulerView.LABEL_MODE_TICKS);
+            mCanvas.reset();
+            int labels = mRenderer.drawLabels(mCanvas);
+
+            //可见的文字刻度中除去两端完全透明及被中间文字遮挡的
+            assertTrue(GRAVITY_NAMES[gravity] + " drew " + labels, labels > 2 && labels < LENGTH / LINE_MARGIN / 5);
+            assertEquals(labels, mCanvas.getDrawTextCalls());
+            assertEquals(labels, mCanvas.getSetAlphaCalls());
+            assertEquals(0, mCanvas.getMeasureTextCalls());
+
+            //逐刻度文字模式同样不分配内存
+            simulateFrames(FRAMES);
+            long start = allocatedBytes();
+            simulateFrames(FRAMES);
+            long allocated = allocatedBytes() - start;
+            assertTrue(GRAVITY_NAMES[gravity] + " allocated " + allocated + " bytes", allocated < FRAMES);
+            mRenderer.setLabelMode(RulerView.LABEL_MODE_SIDE);
+        }
+    }
+
+    @Test
+    public void density_binsBoundedByLength() {
+        setUp(RULER_GRAVITY_TOP);
+        float[] data = new float[1 << 20];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (float) Math.sin(i / 1000.0);
+        mCore.setMaxValue(data.length / 10.0);
+        mRenderer.setDensity(MinMaxPyramid.build(data), 0);
+        mRenderer.setDensityGeometry(20, 2);
+
+        for (int lineMargin : new int[]{LINE_MARGIN, 4, 1}) {
+            mCore.setLineMargin(lineMargin);
+            mCanvas.reset();
+            int bins = mRenderer.drawDensity(mCanvas);
+            assertTrue(bins > 0);
+            assertTrue(lineMargin + ": " + bins, bins <= LENGTH / 2 + 2);
+            assertEquals(1, mCanvas.getDrawLinesCalls());
+        }
+    }
+
+    /**
+     * 模拟滑动过程，预热后每帧的绘制不应分配内存
+     */
+    @Test
+    public void draw_allocatesNothingAcrossFrames() {
+        for (int gravity : GRAVITIES) {
+            setUp(gravity);
+            simulateFrames(FRAMES);
+
+            long start = allocatedBytes();
+            simulateFrames(FRAMES);
+            long allocated = allocatedBytes() - start;
+
+            //每帧哪怕只分配一个对象也至少有16字节，允许JVM自身少量的分配
+            assertTrue(GRAVITY_NAMES[gravity] + " allocated " + allocated + " bytes", allocated < FRAMES);
+        }
+    }
+
+    @Test
+    public void draw_matchesGoldenFiles() throws IOException {
+        boolean update = Boolean.getBoolean("ruler.updateGolden");
+        for (int gravity : GRAVITIES) {
+            setUp(gravity);
+            mCanvas.setRecording(true);
+            mCanvas.reset();
+
+            //初始状态、滑动到非整数刻度的位置、滑动到最小值
+            mCanvas.log("frame 0");
+            mRenderer.draw(mCanvas);
+            mCore.scroll(-45);
+            mCanvas.log("frame 1");
+            mRenderer.draw(mCanvas);
+            mCore.scroll(-1e6f);
+            mCanvas.log("frame 2");
+            mRenderer.draw(mCanvas);
+
+            String name = "golden/ruler_" + GRAVITY_NAMES[gravity] + ".txt";
+            if (update)
+                writeGolden(name, mCanvas.getLog());
+            else
+                assertEquals(name, readGolden(name), mCanvas.getLog());
+        }
+    }
+
+    private void setUp(int gravity) {
+        boolean isHorizontal = gravity == RULER_GRAVITY_TOP || gravity == RULER_GRAVITY_BOTTOM;
+        mCore.setUnitExponent(-1);
+        mCore.setMinValue(0);
+        mCore.setMaxValue(100);
+        mCore.setCurrentValue(50);
+        mCore.setLineMargin(LINE_MARGIN);
+        mCore.setLength(LENGTH);
+        mCore.setTextInterval(10);
+        mLabelCache.setFormat(-1, "kg");
+        mRenderer.updateTextMetrics(mCanvas);
+
+        RulerLayout layout = RulerLayout.of(isHorizontal, gravity);
+        layout.update(isHorizontal ? LENGTH : DEPTH, isHorizontal ? DEPTH : LENGTH,
+                MAX_LENGTH, TEXT_VALUE_MARGIN, LARGE_TEXT_SIZE, SMALL_TEXT_SIZE);
+        mRenderer.setRulerLayout(layout);
+        mRenderer.setLengths(MAX_LENGTH, NORMAL_LENGTH, LONG_LENGTH);
+        mRenderer.setTextSizes(LARGE_TEXT_SIZE, SMALL_TEXT_SIZE);
+        mRenderer.update();
+        mCanvas.setRecording(false);
+    }
+
+    private void simulateFrames(int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            mCore.scroll(frame % 200 < 100 ? 7 : -7);
+            mCanvas.reset();
+            mRenderer.draw(mCanvas);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private String readGolden(String name) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+        assertNotNull("missing " + name + ", run with -Druler.updateGolden=true", in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0)
+                out.write(buffer, 0, n);
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 写入模块目录下的src/test/resources，Gradle运行单元测试时的工作目录为模块目录
+     */
+    private static void writeGolden(String name, String content) throws IOException {
+        File file = new File("src/test/resources/" + name);
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
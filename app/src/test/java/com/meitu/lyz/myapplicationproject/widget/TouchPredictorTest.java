@@ -0,0 +1,57 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TouchPredictor} 的速度估算及外推测试
+ */
+public class TouchPredictorTest {
+
+    private static final float DELTA = 1e-4f;
+
+    private TouchPredictor mPredictor;
+
+    @Before
+    public void setUp() {
+        mPredictor = new TouchPredictor();
+        mPredictor.reset(100, 1000);
+    }
+
+    @Test
+    public void noVelocity_predictsNothing() {
+        assertEquals(0, mPredictor.predict(1016), DELTA);
+    }
+
+    @Test
+    public void constantSpeed_extrapolated() {
+        //120Hz的采样，每8ms移动4px
+        for (int i = 1; i <= 4; i++)
+            mPredictor.addSample(100 + 4 * i, 1000 + 8 * i);
+        assertEquals(0.5f, mPredictor.getVelocity(), DELTA);
+        assertEquals(4f, mPredictor.predict(1032 + 8), DELTA);
+    }
+
+    @Test
+    public void lead_clamped() {
+        mPredictor.addSample(110, 1010);
+        assertEquals(TouchPredictor.MAX_PREDICTION_MILLIS, mPredictor.predict(2000), DELTA);
+        assertEquals(0, mPredictor.predict(900), DELTA);
+    }
+
+    @Test
+    public void duplicateTimestamps_ignored() {
+        mPredictor.addSample(110, 1010);
+        mPredictor.addSample(500, 1010);
+        assertEquals(1f, mPredictor.getVelocity(), DELTA);
+    }
+
+    @Test
+    public void pause_restartsEstimate() {
+        mPredictor.addSample(110, 1010);
+        mPredictor.addSample(110, 1100);
+        assertEquals(0, mPredictor.getVelocity(), DELTA);
+    }
+}
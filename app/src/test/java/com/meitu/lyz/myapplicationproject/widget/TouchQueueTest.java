@@ -0,0 +1,82 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TouchQueue} 的顺序、保留位置及跨线程传递测试
+ */
+public class TouchQueueTest {
+
+    @Test
+    public void capacity_roundedToPowerOfTwo() {
+        assertEquals(64, new TouchQueue(40).capacity());
+        assertEquals(TouchQueue.RESERVED * 2, new TouchQueue(1).capacity());
+    }
+
+    @Test
+    public void pollsInOrder_acrossWrapAround() {
+        TouchQueue queue = new TouchQueue(16);
+        for (int round = 0; round < 5; round++) {
+            assertTrue(queue.offer(TouchQueue.TOUCH_DOWN, round, 0));
+            assertTrue(queue.offer(TouchQueue.TOUCH_MOVE, round + 1, 0));
+            assertTrue(queue.offer(TouchQueue.TOUCH_UP, round + 2, -300));
+
+            assertEquals(TouchQueue.TOUCH_DOWN, queue.poll());
+            assertEquals(round, queue.xy(), 0);
+            assertEquals(TouchQueue.TOUCH_MOVE, queue.poll());
+            assertEquals(round + 1, queue.xy(), 0);
+            assertEquals(TouchQueue.TOUCH_UP, queue.poll());
+            assertEquals(-300, queue.velocity(), 0);
+        }
+        assertEquals(-1, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void moves_leaveRoomForUp() {
+        TouchQueue queue = new TouchQueue(16);
+        int moves = 0;
+        while (queue.offer(TouchQueue.TOUCH_MOVE, moves, 0))
+            moves++;
+        assertEquals(16 - TouchQueue.RESERVED, moves);
+
+        assertTrue(queue.offer(TouchQueue.TOUCH_UP, 0, 0));
+        for (int i = 1; i < TouchQueue.RESERVED; i++)
+            assertTrue(queue.offer(TouchQueue.TOUCH_DOWN, 0, 0));
+        assertFalse(queue.offer(TouchQueue.TOUCH_UP, 0, 0));
+    }
+
+    @Test
+    public void producerConsumer_threadsSeeEveryAcceptedEvent() throws InterruptedException {
+        final TouchQueue queue = new TouchQueue(16);
+        final int count = 10000;
+        final float[] last = new float[1];
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                float expected = 0;
+                while (expected < count) {
+                    if (queue.poll() < 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (queue.xy() != expected)
+                        break;
+                    expected++;
+                }
+                last[0] = expected;
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < count; ) {
+            if (queue.offer(TouchQueue.TOUCH_DOWN, i, 0))
+                i++;
+            else
+                Thread.yield();
+        }
+        consumer.join(10000);
+        assertEquals(count, last[0], 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.meitu.lyz.myapplicationproject.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ValueChangeDispatcher} 的合并、节流及Executor分发测试
+ */
+public class ValueChangeDispatcherTest {
+
+    private ValueChangeDispatcher mDispatcher;
+    private final List<String> mEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mDispatcher = new ValueChangeDispatcher(null);
+        mDispatcher.setListener(new RulerView.OnValueChangeListener() {
+            @Override
+            public void onValueChanging(RulerView rulerView, long unitValue, double value) {
+                mEvents.add("changing " + unitValue);
+            }
+
+            @Override
+            public void onValueSettled(RulerView rulerView, long unitValue, double value) {
+                mEvents.add("settled " + unitValue);
+            }
+        });
+    }
+
+    @Test
+    public void changing_oncePerNewValue() {
+        mDispatcher.onFrame(1, 0.1, false, 0);
+        mDispatcher.onFrame(1, 0.1, false, 16);
+        mDispatcher.onFrame(2, 0.2, false, 32);
+        assertEquals(listOf("changing 1", "changing 2"), mEvents);
+    }
+
+    @Test
+    public void changing_throttled() {
+        mDispatcher.setThrottleMillis(100);
+        mDispatcher.onFrame(1, 0.1, false, 100);
+        mDispatcher.onFrame(2, 0.2, false, 150);
+        mDispatcher.onFrame(3, 0.3, false, 199);
+        mDispatcher.onFrame(4, 0.4, false, 200);
+        //停止时总会回调最终值
+        mDispatcher.onFrame(5, 0.5, true, 210);
+        assertEquals(listOf("changing 1", "changing 4", "settled 5"), mEvents);
+    }
+
+    @Test
+    public void changing_throttledValueDeliveredAtIntervalEnd() {
+        mDispatcher.setThrottleMillis(100);
+        assertEquals(0, mDispatcher.onFrame(1, 0.1, false, 100));
+        //手指在间隔内停住，之后不再有新的帧
+        assertEquals(70, mDispatcher.onFrame(2, 0.2, false, 130));
+        assertEquals(listOf("changing 1"), mEvents);
+
+        //间隔结束时补的一帧回调停住时的数值
+        assertEquals(0, mDispatcher.onFrame(2, 0.2, false, 200));
+        assertEquals(0, mDispatcher.onFrame(2, 0.2, false, 216));
+        assertEquals(listOf("changing 1", "changing 2"), mEvents);
+    }
+
+    @Test
+    public void settled_oncePerValue() {
+        mDispatcher.onFrame(3, 0.3, true, 0);
+        mDispatcher.onFrame(3, 0.3, true, 16);
+        mDispatcher.onFrame(3, 0.3, false, 32);
+        mDispatcher.onFrame(3, 0.3, true, 48);
+        assertEquals(listOf("settled 3"), mEvents);
+    }
+
+    @Test
+    public void reset_suppressesCallbacks() {
+        mDispatcher.reset(7);
+        mDispatcher.onFrame(7, 0.7, false, 0);
+        mDispatcher.onFrame(7, 0.7, true, 16);
+        assertTrue(mEvents.isEmpty());
+    }
+
+    @Test
+    public void listenerSetLater_doesNotReplayEarlierValues() {
+        final List<String> events = new ArrayList<>();
+        ValueChangeDispatcher dispatcher = new ValueChangeDispatcher(null);
+        dispatcher.setThrottleMillis(100);
+        assertEquals(0, dispatcher.onFrame(8, 0.8, false, 0));
+        assertEquals(0, dispatcher.onFrame(9, 0.9, false, 16));
+        dispatcher.onFrame(9, 0.9, true, 32);
+
+        dispatcher.setListener(new RulerView.OnValueChangeListener() {
+            @Override
+            public void onValueChanging(RulerView rulerView, long unitValue, double value) {
+                events.add("changing " + unitValue);
+            }
+
+            @Override
+            public void onValueSettled(RulerView rulerView, long unitValue, double value) {
+                events.add("settled " + unitValue);
+            }
+        });
+        dispatcher.onFrame(9, 0.9, true, 48);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void executor_coalescesPendingDispatch() {
+        final List<Runnable> queue = new ArrayList<>();
+        mDispatcher.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        });
+
+        mDispatcher.onFrame(1, 0.1, false, 0);
+        mDispatcher.onFrame(2, 0.2, false, 16);
+        mDispatcher.onFrame(3, 0.3, false, 32);
+        assertEquals(1, queue.size());
+        assertTrue(mEvents.isEmpty());
+
+        queue.remove(0).run();
+        assertEquals(listOf("changing 3"), mEvents);
+
+        //执行后再次分发会重新提交，不同类的回调在同一次执行中按顺序回调
+        mDispatcher.onFrame(4, 0.4, false, 48);
+        mDispatcher.onFrame(4, 0.4, true, 64);
+        assertEquals(1, queue.size());
+        queue.remove(0).run();
+        assertEquals(listOf("changing 3", "changing 4", "settled 4"), mEvents);
+    }
+
+    @Test
+    public void executor_lastCallbackIsNewestState() {
+        final List<Runnable> queue = new ArrayList<>();
+        mDispatcher.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queue.add(command);
+            }
+        });
+
+        //滑动中停止，尚未回调时又开始新的滑动
+        mDispatcher.onFrame(5, 0.5, false, 0);
+        mDispatcher.onFrame(6, 0.6, true, 16);
+        mDispatcher.onFrame(7, 0.7, false, 32);
+        assertEquals(1, queue.size());
+        queue.remove(0).run();
+        assertEquals(listOf("settled 6", "changing 7"), mEvents);
+    }
+
+    private static List<String> listOf(String... events) {
+        List<String> list = new ArrayList<>();
+        for (String event : events)
+            list.add(event);
+        return list;
+    }
+}
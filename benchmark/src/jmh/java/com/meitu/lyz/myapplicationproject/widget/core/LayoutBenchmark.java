@@ -0,0 +1,76 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每帧绘制前的布局计算的基准测试：可见刻度的遍历及两侧文字的位置
+ * 与RulerRenderer.drawLines的两遍分组遍历一致，只是不写入顶点数组
+ */
+@State(Scope.Thread)
+public class LayoutBenchmark {
+
+    private static final int ALPHA_BUCKETS = 16;
+
+    //数值范围包含的刻度数
+    @Param({"1000", "10000000", "1000000000000000"})
+    public long ticks;
+
+    //单位值的指数
+    @Param({"-1", "-3"})
+    public int unitExponent;
+
+    private RulerCore mCore;
+    private final int[] mBucketCounts = new int[ALPHA_BUCKETS];
+
+    @Setup
+    public void setUp() {
+        mCore = RulerFixtures.create(ticks, unitExponent);
+        //偏移到非整数刻度的位置，使每条刻度的坐标都需要计算
+        mCore.scroll(3);
+    }
+
+    /**
+     * 统计每个透明度分组的刻度数，及其中的长刻度数
+     */
+    @Benchmark
+    public int visibleTicks() {
+        RulerCore core = mCore;
+        int[] counts = mBucketCounts;
+        for (int b = 0; b < ALPHA_BUCKETS; b++)
+            counts[b] = 0;
+
+        int start = core.getVisibleStart();
+        int end = core.getVisibleEnd();
+        int lineMargin = core.getLineMargin();
+        long unitValue = core.getFirstUnitValue() + start;
+        int xy = core.getFirstXY() + start * lineMargin;
+        int longTicks = 0;
+        for (int i = start; i < end; i++, unitValue++, xy += lineMargin) {
+            int bucket = core.alphaBucket(xy, ALPHA_BUCKETS);
+            if (bucket < 0)
+                continue;
+            counts[bucket]++;
+            if (core.isLongTick(unitValue))
+                longTicks++;
+        }
+        return longTicks;
+    }
+
+    @Benchmark
+    public int sideTextInterval() {
+        return mCore.getSideTextInterval();
+    }
+
+    /**
+     * 对外接口中单位值与刻度值的相互换算
+     */
+    @Benchmark
+    public long valueRoundTrip() {
+        RulerCore core = mCore;
+        return core.toUnitValue(core.toValue(core.getCurrentUnitValue()));
+    }
+}
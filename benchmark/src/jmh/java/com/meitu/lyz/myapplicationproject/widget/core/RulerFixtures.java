@@ -0,0 +1,31 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 基准测试使用的尺，参数与1080px宽的屏幕上的默认配置一致
+ */
+final class RulerFixtures {
+
+    private static final int LENGTH = 1080;
+    private static final int LINE_MARGIN = 24;
+
+    private RulerFixtures() {
+    }
+
+    /**
+     * @param ticks        数值范围包含的刻度数
+     * @param unitExponent 单位值的指数
+     * @return 当前值位于数值范围中间的尺
+     */
+    static RulerCore create(long ticks, int unitExponent) {
+        RulerCore core = new RulerCore();
+        core.setUnitExponent(unitExponent);
+        core.setMinUnitValue(0);
+        core.setMaxUnitValue(ticks);
+        core.setCurrentUnitValue(ticks / 2);
+        core.setValueInterval(5);
+        core.setTextInterval(10);
+        core.setLineMargin(LINE_MARGIN);
+        core.setLength(LENGTH);
+        return core;
+    }
+}
@@ -0,0 +1,44 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 各{@link Scale}实现的下标与刻度值换算及文字格式化的基准测试，每次操作均应为常数时间且不分配内存
+ */
+@State(Scope.Thread)
+public class ScaleBenchmark {
+
+    @Param({"linear", "log", "piecewise"})
+    public String scale;
+
+    private Scale mScale;
+    private final char[] mChars = new char[Scale.MAX_LABEL_CHARS];
+    private long mIndex;
+
+    @Setup
+    public void setUp() {
+        if ("log".equals(scale))
+            //20Hz-20kHz，每个十倍程30格
+            mScale = new LogScale(30, 3);
+        else if ("piecewise".equals(scale))
+            mScale = new PiecewiseLinearScale(new double[]{0, 1, 10, 100, 1000}, new double[]{0.01, 0.1, 1, 10});
+        else
+            mScale = new LinearScale(-3);
+    }
+
+    @Benchmark
+    public long valueRoundTrip() {
+        long index = mIndex++ & 0xff;
+        return mScale.toIndex(mScale.toValue(index));
+    }
+
+    @Benchmark
+    public int format() {
+        long index = mIndex++ & 0xff;
+        return mScale.format(index, mChars);
+    }
+}
@@ -0,0 +1,71 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 滑动计算的基准测试：拖动中的单次偏移，及一次完整的fling加校准
+ */
+@State(Scope.Thread)
+public class ScrollBenchmark {
+
+    //fling的帧数，约1.5s
+    private static final int FLING_FRAMES = 90;
+
+    //数值范围包含的刻度数
+    @Param({"1000", "10000000", "1000000000000000"})
+    public long ticks;
+
+    //单位值的指数
+    @Param({"-1", "-3"})
+    public int unitExponent;
+
+    private RulerCore mCore;
+    //每帧的偏移量，按fling的减速曲线预先计算
+    private final float[] mFlingDistances = new float[FLING_FRAMES];
+    //拖动时交替使用的偏移量
+    private final float[] mDragDistances = {3.7f, -1.2f, 12.5f, -8.4f, 0.6f, -0.6f, 25f, -31.3f};
+    private int mDragIndex;
+    private int mDirection = 1;
+
+    @Setup
+    public void setUp() {
+        mCore = RulerFixtures.create(ticks, unitExponent);
+
+        //初速度8000px/s，每帧衰减5%
+        float velocity = 8000f / 60;
+        for (int i = 0; i < FLING_FRAMES; i++) {
+            mFlingDistances[i] = velocity;
+            velocity *= 0.95f;
+        }
+    }
+
+    /**
+     * 拖动中的一次MOVE事件
+     */
+    @Benchmark
+    public long drag() {
+        mCore.scroll(mDragDistances[mDragIndex]);
+        mDragIndex = (mDragIndex + 1) & (mDragDistances.length - 1);
+        return mCore.getCurrentUnitValue();
+    }
+
+    /**
+     * 一次完整的fling及结束后的校准，方向交替以保持在数值范围内
+     */
+    @Benchmark
+    public double fling() {
+        RulerCore core = mCore;
+        int direction = mDirection;
+        for (int i = 0; i < FLING_FRAMES; i++)
+            core.scroll(direction * mFlingDistances[i]);
+        mDirection = -direction;
+
+        double correction = core.normalizeScroll() ? core.getCorrectionDistance() : 0;
+        core.scroll((float) correction);
+        return correction;
+    }
+}
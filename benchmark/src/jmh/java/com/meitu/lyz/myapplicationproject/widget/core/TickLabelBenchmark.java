@@ -0,0 +1,72 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 逐刻度文字模式的基准测试：同一屏上四把尺同时滑动，每帧各偏移一次并重新布局文字
+ * 文字宽度每次都重新格式化后计算，即文字缓存全部未命中的最坏情况
+ * <p>
+ * 结果为四把尺一帧的总耗时，应远小于60fps下16.6ms的帧预算
+ */
+@State(Scope.Thread)
+public class TickLabelBenchmark {
+
+    private static final int RULERS = 4;
+    //每个字符的宽度，与12sp的文字在xxhdpi下接近
+    private static final float CHAR_WIDTH = 18;
+
+    //刻度文字的间隔，1为每个刻度都有文字
+    @Param({"1", "5", "10"})
+    public int textInterval;
+
+    //刻度线的间距
+    @Param({"8", "24"})
+    public int lineMargin;
+
+    private final RulerCore[] mCores = new RulerCore[RULERS];
+    private final TickLabelLayout[] mLayouts = new TickLabelLayout[RULERS];
+    private final float[] mDragDistances = {3.7f, -1.2f, 12.5f, -8.4f, 0.6f, -0.6f, 25f, -31.3f};
+    private int mDragIndex;
+
+    private final char[] mBuffer = new char[Scale.MAX_LABEL_CHARS];
+    private Scale mScale;
+    private final TickLabelLayout.Measurer mMeasurer = new TickLabelLayout.Measurer() {
+        @Override
+        public float measure(long unitValue) {
+            return mScale.format(unitValue, mBuffer) * CHAR_WIDTH;
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < RULERS; i++) {
+            RulerCore core = RulerFixtures.create(10000000L, -1);
+            core.setTextInterval(textInterval);
+            core.setLineMargin(lineMargin);
+            mCores[i] = core;
+            mLayouts[i] = new TickLabelLayout();
+        }
+        mScale = mCores[0].getScale();
+    }
+
+    /**
+     * 一帧：四把尺各偏移一次并布局可见的文字
+     */
+    @Benchmark
+    public int frame() {
+        float distance = mDragDistances[mDragIndex];
+        mDragIndex = (mDragIndex + 1) & (mDragDistances.length - 1);
+
+        int labels = 0;
+        for (int i = 0; i < RULERS; i++) {
+            RulerCore core = mCores[i];
+            core.scroll(distance);
+            labels += mLayouts[i].layout(core, mMeasurer, 5 * CHAR_WIDTH, 2 * CHAR_WIDTH, CHAR_WIDTH / 2);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,109 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 线性刻度，刻度值为 index * 10^exponent，文字按十进制精确格式化
+ */
+public final class LinearScale implements Scale {
+
+    //单位值指数的范围，10^n在|n|<=22时可精确表示
+    public static final int MIN_EXPONENT = -22;
+    public static final int MAX_EXPONENT = 22;
+
+    //格式化时指数的范围，long最多19位数字，加上符号、小数点及补齐的0不超过MAX_LABEL_CHARS
+    private static final int MIN_FORMAT_EXPONENT = -(MAX_LABEL_CHARS - 3);
+    private static final int MAX_FORMAT_EXPONENT = MAX_LABEL_CHARS - 22;
+
+    //单位值的指数，单位值为10^mExponent
+    private final int mExponent;
+    //10^|mExponent|，用于单位值与刻度值之间的换算
+    private final double mUnitScale;
+
+    /**
+     * @param exponent 单位值的指数，范围为[{@link #MIN_EXPONENT}, {@link #MAX_EXPONENT}]
+     */
+    public LinearScale(int exponent) {
+        if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT)
+            throw new IllegalArgumentException("exponent out of range: " + exponent);
+        mExponent = exponent;
+        mUnitScale = Math.pow(10, Math.abs(exponent));
+    }
+
+    public int getExponent() {
+        return mExponent;
+    }
+
+    /**
+     * 10^n在n<=22时可精确表示，除法的结果即为与十进制值最接近的double
+     */
+    @Override
+    public double toValue(long index) {
+        return mExponent < 0 ? index / mUnitScale : index * mUnitScale;
+    }
+
+    @Override
+    public long toIndex(double value) {
+        return mExponent < 0 ? Math.round(value * mUnitScale) : Math.round(value / mUnitScale);
+    }
+
+    @Override
+    public int format(long index, char[] dst) {
+        return format(index, mExponent, dst);
+    }
+
+    /**
+     * 将 unitIndex * 10^exponent 格式化到dst的起始位置，不产生新对象
+     * 格式与Double.toString在常规范围内一致：至少保留一位小数，并去掉多余的0
+     *
+     * @param exponent 范围为[-45, 26]，超出时文字会超过{@link #MAX_LABEL_CHARS}
+     * @param dst      长度至少为{@link #MAX_LABEL_CHARS}
+     * @return 写入的字符数
+     */
+    public static int format(long unitIndex, int exponent, char[] dst) {
+        if (exponent < MIN_FORMAT_EXPONENT || exponent > MAX_FORMAT_EXPONENT)
+            throw new IllegalArgumentException("exponent out of range: " + exponent);
+        int decimals = exponent < 0 ? -exponent : 0;
+        int pos = MAX_LABEL_CHARS;
+        boolean negative = unitIndex < 0;
+        //统一用负数计算，避免Long.MIN_VALUE取绝对值溢出
+        long n = negative ? unitIndex : -unitIndex;
+
+        if (decimals > 0) {
+            for (int i = 0; i < decimals; i++) {
+                dst[--pos] = (char) ('0' - n % 10);
+                n /= 10;
+            }
+        } else {
+            dst[--pos] = '0';
+        }
+        dst[--pos] = '.';
+        //0不补齐末尾的0
+        if (n != 0) {
+            for (int i = 0; i < exponent; i++)
+                dst[--pos] = '0';
+        }
+        do {
+            dst[--pos] = (char) ('0' - n % 10);
+            n /= 10;
+        } while (n != 0);
+        if (negative)
+            dst[--pos] = '-';
+
+        int length = MAX_LABEL_CHARS - pos;
+        System.arraycopy(dst, pos, dst, 0, length);
+
+        //去掉小数部分末尾多余的0，至少保留一位
+        while (dst[length - 1] == '0' && dst[length - 2] != '.')
+            length--;
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LinearScale && ((LinearScale) o).mExponent == mExponent;
+    }
+
+    @Override
+    public int hashCode() {
+        return mExponent;
+    }
+}
@@ -0,0 +1,113 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 对数刻度，刻度值为 10^(index / ticksPerDecade)，下标0对应刻度值1
+ * 每个十倍程包含相同的刻度数，适合跨越多个数量级的频率、曝光等数值
+ * 下标与刻度值之间使用闭式换算，文字按有效数字格式化
+ */
+public final class LogScale implements Scale {
+
+    //常规格式显示的十进制指数范围，超出时使用科学计数法
+    private static final int MIN_PLAIN_EXPONENT = -20;
+    private static final int MAX_PLAIN_EXPONENT = 17;
+
+    private final int mTicksPerDecade;
+    private final int mSignificantDigits;
+    //10^mSignificantDigits，有效数字进位时使用
+    private final long mDigitsLimit;
+
+    /**
+     * @param ticksPerDecade    每个十倍程的刻度数
+     * @param significantDigits 文字的有效数字位数 [1-15]
+     */
+    public LogScale(int ticksPerDecade, int significantDigits) {
+        if (ticksPerDecade <= 0)
+            throw new IllegalArgumentException("ticksPerDecade must be positive: " + ticksPerDecade);
+        if (significantDigits < 1 || significantDigits > 15)
+            throw new IllegalArgumentException("significantDigits out of range: " + significantDigits);
+        mTicksPerDecade = ticksPerDecade;
+        mSignificantDigits = significantDigits;
+        long limit = 1;
+        for (int i = 0; i < significantDigits; i++)
+            limit *= 10;
+        mDigitsLimit = limit;
+    }
+
+    public int getTicksPerDecade() {
+        return mTicksPerDecade;
+    }
+
+    @Override
+    public double toValue(long index) {
+        //整十倍程处直接取10的幂，避免pow的误差
+        if (index % mTicksPerDecade == 0)
+            return Math.pow(10, index / mTicksPerDecade);
+        return Math.pow(10, (double) index / mTicksPerDecade);
+    }
+
+    /**
+     * 非正数按最小的正数处理
+     */
+    @Override
+    public long toIndex(double value) {
+        if (!(value >= Double.MIN_NORMAL))
+            value = Double.MIN_NORMAL;
+        return Math.round(Math.log10(value) * mTicksPerDecade);
+    }
+
+    @Override
+    public int format(long index, char[] dst) {
+        double value = toValue(index);
+        if (value == 0 || Double.isInfinite(value)) {
+            //超出double的范围
+            dst[0] = value == 0 ? '0' : '∞';
+            return 1;
+        }
+
+        //将刻度值表示为 digits * 10^exponent，digits为mSignificantDigits位整数
+        int decimalExponent = (int) Math.floor(Math.log10(value));
+        int exponent = decimalExponent - mSignificantDigits + 1;
+        long digits = Math.round(value / Math.pow(10, exponent));
+        if (digits >= mDigitsLimit) {
+            digits /= 10;
+            exponent++;
+            decimalExponent++;
+        }
+
+        if (decimalExponent >= MIN_PLAIN_EXPONENT && decimalExponent <= MAX_PLAIN_EXPONENT)
+            return LinearScale.format(digits, exponent, dst);
+
+        //科学计数法，与Double.toString一致，如1.23E-25
+        int length = LinearScale.format(digits, 1 - mSignificantDigits, dst);
+        dst[length++] = 'E';
+        if (decimalExponent < 0) {
+            dst[length++] = '-';
+            decimalExponent = -decimalExponent;
+        }
+        int start = length;
+        do {
+            dst[length++] = (char) ('0' + decimalExponent % 10);
+            decimalExponent /= 10;
+        } while (decimalExponent != 0);
+        //数字是倒序写入的，翻转
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            char c = dst[i];
+            dst[i] = dst[j];
+            dst[j] = c;
+        }
+        return length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof LogScale))
+            return false;
+        LogScale scale = (LogScale) o;
+        return scale.mTicksPerDecade == mTicksPerDecade && scale.mSignificantDigits == mSignificantDigits;
+    }
+
+    @Override
+    public int hashCode() {
+        return mTicksPerDecade * 31 + mSignificantDigits;
+    }
+}
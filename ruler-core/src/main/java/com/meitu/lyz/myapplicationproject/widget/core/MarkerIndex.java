@@ -0,0 +1,122 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * 刻度上的标记，以有序的单位值数组保存，同一单位值只保留一个
+ * 查询可见范围内的标记为两次二分查找，O(log n + k)，绘制时不遍历全部标记
+ * <p>
+ * 单个标记的增删只移动其后的元素，不重新排序；批量添加时先排序再与已有标记归并
+ */
+public final class MarkerIndex {
+
+    private long[] mValues = new long[16];
+    private int mSize;
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param index [0, {@link #size()})，按单位值升序
+     */
+    public long get(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * @return 是否添加，已存在时返回false
+     */
+    public boolean add(long unitValue) {
+        int index = Arrays.binarySearch(mValues, 0, mSize, unitValue);
+        if (index >= 0)
+            return false;
+        index = -index - 1;
+        ensureCapacity(mSize + 1);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = unitValue;
+        mSize++;
+        return true;
+    }
+
+    /**
+     * 批量添加，传入的数组无需有序，不会被修改
+     */
+    public void addAll(long[] unitValues) {
+        long[] added = unitValues.clone();
+        Arrays.sort(added);
+
+        //从后往前归并，不需要额外的数组
+        ensureCapacity(mSize + added.length);
+        int i = mSize - 1;
+        int j = added.length - 1;
+        int k = mSize + added.length - 1;
+        while (j >= 0) {
+            if (i >= 0 && mValues[i] > added[j])
+                mValues[k--] = mValues[i--];
+            else
+                mValues[k--] = added[j--];
+        }
+        mSize += added.length;
+        removeDuplicates();
+    }
+
+    /**
+     * @return 是否删除，不存在时返回false
+     */
+    public boolean remove(long unitValue) {
+        int index = Arrays.binarySearch(mValues, 0, mSize, unitValue);
+        if (index < 0)
+            return false;
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        return true;
+    }
+
+    public boolean contains(long unitValue) {
+        return Arrays.binarySearch(mValues, 0, mSize, unitValue) >= 0;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return 第一个不小于unitValue的标记的下标，都小于时为{@link #size()}
+     */
+    public int lowerBound(long unitValue) {
+        int index = Arrays.binarySearch(mValues, 0, mSize, unitValue);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * 查找与unitValue距离不超过maxDistance的最近标记，距离相同时取较小的
+     *
+     * @return 标记的下标，不存在时返回-1
+     */
+    public int nearest(long unitValue, long maxDistance) {
+        int ceiling = lowerBound(unitValue);
+        int floor = ceiling < mSize && mValues[ceiling] == unitValue ? ceiling : ceiling - 1;
+        long floorDistance = floor >= 0 ? unitValue - mValues[floor] : Long.MAX_VALUE;
+        long ceilingDistance = ceiling < mSize ? mValues[ceiling] - unitValue : Long.MAX_VALUE;
+        if (floorDistance <= ceilingDistance)
+            return floorDistance <= maxDistance ? floor : -1;
+        return ceilingDistance <= maxDistance ? ceiling : -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mValues.length < capacity)
+            mValues = Arrays.copyOf(mValues, Math.max(capacity, mValues.length * 2));
+    }
+
+    private void removeDuplicates() {
+        if (mSize == 0)
+            return;
+        int size = 1;
+        for (int i = 1; i < mSize; i++) {
+            if (mValues[i] != mValues[size - 1])
+                mValues[size++] = mValues[i];
+        }
+        mSize = size;
+    }
+}
@@ -0,0 +1,158 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 数据序列的最小最大值金字塔，用于沿尺绘制数据的分布
+ * 第0级即原始数据，直接引用传入的数组而不复制；第k级的每个分组为原始数据中2^k个连续采样的最小及最大值
+ * 任意缩放比例下，每个可见分组只需查询一次，开销与数据量无关
+ * <p>
+ * NaN表示缺失的数据，不参与最小最大值的计算，全部缺失的分组其最小及最大值均为NaN
+ * 构建后不可修改，可在后台线程构建后交给主线程使用，传入的数组在构建后不应再修改
+ */
+public final class MinMaxPyramid {
+
+    private final float[] mFloatData;
+    private final double[] mDoubleData;
+    private final int mSize;
+    //第1级起每一级的最小及最大值，下标为级数-1
+    private final float[][] mMins;
+    private final float[][] mMaxs;
+    //所有数据的最小及最大值
+    private final float mMinValue;
+    private final float mMaxValue;
+
+    private MinMaxPyramid(float[] floatData, double[] doubleData, int size) {
+        mFloatData = floatData;
+        mDoubleData = doubleData;
+        mSize = size;
+
+        int levels = levelFor(size);
+        mMins = new float[levels][];
+        mMaxs = new float[levels][];
+
+        //第1级由原始数据计算，之后每一级由上一级两两合并
+        int count = (size + 1) / 2;
+        float[] mins = new float[count];
+        float[] maxs = new float[count];
+        for (int i = 0; i < count; i++) {
+            float a = sample(2 * i);
+            float b = 2 * i + 1 < size ? sample(2 * i + 1) : Float.NaN;
+            mins[i] = min(a, b);
+            maxs[i] = max(a, b);
+        }
+        if (levels > 0) {
+            mMins[0] = mins;
+            mMaxs[0] = maxs;
+        }
+        for (int level = 1; level < levels; level++) {
+            float[] lowerMins = mins;
+            float[] lowerMaxs = maxs;
+            int lowerCount = count;
+            count = (lowerCount + 1) / 2;
+            mins = new float[count];
+            maxs = new float[count];
+            for (int i = 0; i < count; i++) {
+                boolean pair = 2 * i + 1 < lowerCount;
+                mins[i] = pair ? min(lowerMins[2 * i], lowerMins[2 * i + 1]) : lowerMins[2 * i];
+                maxs[i] = pair ? max(lowerMaxs[2 * i], lowerMaxs[2 * i + 1]) : lowerMaxs[2 * i];
+            }
+            mMins[level] = mins;
+            mMaxs[level] = maxs;
+        }
+
+        if (levels > 0) {
+            mMinValue = mins[0];
+            mMaxValue = maxs[0];
+        } else {
+            mMinValue = size > 0 ? sample(0) : Float.NaN;
+            mMaxValue = mMinValue;
+        }
+    }
+
+    /**
+     * 构建金字塔，耗时与数据量成正比，应在后台线程调用
+     */
+    public static MinMaxPyramid build(float[] data) {
+        return new MinMaxPyramid(data, null, data.length);
+    }
+
+    /**
+     * 构建金字塔，原始数据仍以double读取，各级分组以float保存
+     */
+    public static MinMaxPyramid build(double[] data) {
+        return new MinMaxPyramid(null, data, data.length);
+    }
+
+    /**
+     * 覆盖指定数量的采样所需的最低级数，即2^level不小于samples的最小level
+     */
+    public static int levelFor(long samples) {
+        if (samples <= 1)
+            return 0;
+        return 64 - Long.numberOfLeadingZeros(samples - 1);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return 级数，包括第0级
+     */
+    public int getLevelCount() {
+        return mMins.length + 1;
+    }
+
+    /**
+     * @return 指定级的分组数
+     */
+    public int getBinCount(int level) {
+        return level == 0 ? mSize : mMins[level - 1].length;
+    }
+
+    /**
+     * @param level 级数，小于{@link #getLevelCount()}
+     * @param bin   分组下标，即原始数据下标/2^level
+     */
+    public float getMin(int level, int bin) {
+        if (level == 0)
+            return sample(bin);
+        return mMins[level - 1][bin];
+    }
+
+    public float getMax(int level, int bin) {
+        if (level == 0)
+            return sample(bin);
+        return mMaxs[level - 1][bin];
+    }
+
+    /**
+     * @return 所有数据的最小值，没有数据时为NaN
+     */
+    public float getMinValue() {
+        return mMinValue;
+    }
+
+    public float getMaxValue() {
+        return mMaxValue;
+    }
+
+    private float sample(int index) {
+        return mFloatData != null ? mFloatData[index] : (float) mDoubleData[index];
+    }
+
+    private static float min(float a, float b) {
+        if (a != a)
+            return b;
+        if (b != b)
+            return a;
+        return Math.min(a, b);
+    }
+
+    private static float max(float a, float b) {
+        if (a != a)
+            return b;
+        if (b != b)
+            return a;
+        return Math.max(a, b);
+    }
+}
@@ -0,0 +1,138 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * 分段线性刻度，每段有各自的刻度步长，如0-1每0.01一格、1-10每0.1一格、10-100每1一格
+ * 构造时预先计算每段起点的下标，换算时二分查找所在的段，
+ * 段内按整数运算得到 刻度值 * 10^小数位数，文字按十进制精确格式化
+ */
+public final class PiecewiseLinearScale implements Scale {
+
+    //步长的最大小数位数
+    private static final int MAX_DECIMALS = 9;
+
+    //各段起点的刻度值，比段数多一个，最后一个为终点
+    private final double[] mBreakpoints;
+    private final double[] mSteps;
+    //各段起点的下标，比段数多一个
+    private final long[] mStartIndices;
+    //各段的小数位数，及以该精度表示的起点值和步长
+    private final int[] mDecimals;
+    private final long[] mScaledStarts;
+    private final long[] mScaledSteps;
+    //10^小数位数
+    private final double[] mPowers;
+
+    /**
+     * @param breakpoints 各段的分界点，严格递增，长度为段数+1
+     * @param steps       各段的刻度步长，每段的长度须为步长的整数倍
+     */
+    public PiecewiseLinearScale(double[] breakpoints, double[] steps) {
+        int segments = steps.length;
+        if (segments == 0 || breakpoints.length != segments + 1)
+            throw new IllegalArgumentException("need steps.length + 1 breakpoints");
+
+        mBreakpoints = breakpoints.clone();
+        mSteps = steps.clone();
+        mStartIndices = new long[segments + 1];
+        mDecimals = new int[segments];
+        mScaledStarts = new long[segments];
+        mScaledSteps = new long[segments];
+        mPowers = new double[segments];
+
+        for (int i = 0; i < segments; i++) {
+            double length = mBreakpoints[i + 1] - mBreakpoints[i];
+            if (!(mSteps[i] > 0) || !(length > 0))
+                throw new IllegalArgumentException("segment " + i + " must have positive length and step");
+            mStartIndices[i + 1] = mStartIndices[i] + Math.round(length / mSteps[i]);
+
+            int decimals = Math.max(decimalsOf(mSteps[i]), decimalsOf(mBreakpoints[i]));
+            double pow = Math.pow(10, decimals);
+            mDecimals[i] = decimals;
+            mPowers[i] = pow;
+            mScaledStarts[i] = Math.round(mBreakpoints[i] * pow);
+            mScaledSteps[i] = Math.round(mSteps[i] * pow);
+        }
+    }
+
+    /**
+     * 先以整数计算 刻度值 * 10^小数位数 再相除，结果即为与十进制值最接近的double
+     */
+    @Override
+    public double toValue(long index) {
+        int segment = segmentOfIndex(index);
+        return scaledValue(segment, index) / mPowers[segment];
+    }
+
+    @Override
+    public long toIndex(double value) {
+        int segment = segmentOfValue(value);
+        return mStartIndices[segment] + Math.round((value - mBreakpoints[segment]) / mSteps[segment]);
+    }
+
+    @Override
+    public int format(long index, char[] dst) {
+        int segment = segmentOfIndex(index);
+        return LinearScale.format(scaledValue(segment, index), -mDecimals[segment], dst);
+    }
+
+    private long scaledValue(int segment, long index) {
+        return mScaledStarts[segment] + (index - mStartIndices[segment]) * mScaledSteps[segment];
+    }
+
+    /**
+     * @return 下标所在的段，超出范围时取首段或末段，按该段的步长外推
+     */
+    private int segmentOfIndex(long index) {
+        int low = 0;
+        int high = mSteps.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mStartIndices[mid] <= index)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    private int segmentOfValue(double value) {
+        int low = 0;
+        int high = mSteps.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mBreakpoints[mid] <= value)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PiecewiseLinearScale))
+            return false;
+        PiecewiseLinearScale scale = (PiecewiseLinearScale) o;
+        return Arrays.equals(scale.mBreakpoints, mBreakpoints) && Arrays.equals(scale.mSteps, mSteps);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(mBreakpoints) * 31 + Arrays.hashCode(mSteps);
+    }
+
+    /**
+     * @return 十进制表示所需的小数位数，最多{@link #MAX_DECIMALS}位
+     */
+    private static int decimalsOf(double value) {
+        double pow = 1;
+        for (int decimals = 0; decimals < MAX_DECIMALS; decimals++, pow *= 10) {
+            double scaled = value * pow;
+            if (Math.abs(scaled - Math.rint(scaled)) < 1e-9 * Math.max(1, Math.abs(scaled)))
+                return decimals;
+        }
+        return MAX_DECIMALS;
+    }
+}
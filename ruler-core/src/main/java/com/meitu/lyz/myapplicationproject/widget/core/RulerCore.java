@@ -0,0 +1,506 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 刻度尺的数值模型及滑动、布局计算，不依赖Android平台，可在JVM上单元测试及基准测试
+ * RulerView持有一个实例，绘制及手势处理中的计算均委托给它
+ * <p>
+ * 数值以整数的刻度下标（单位值）表示，下标与刻度值之间的换算由{@link Scale}完成，
+ * 坐标中的xy均指沿尺方向的坐标，即水平尺的x，垂直尺的y
+ */
+public class RulerCore {
+
+    //单位值的上下限，留出余量保证相减及加上可见刻度数时不会溢出
+    public static final long MAX_UNIT_VALUE = Long.MAX_VALUE / 4;
+    public static final long MIN_UNIT_VALUE = -MAX_UNIT_VALUE;
+
+    //层级刻度间隔的上限，保证间隔不超出int
+    private static final long MAX_LEVEL_INTERVAL = Integer.MAX_VALUE / 10;
+
+    //当前刻度值对应的单位值
+    private long mCurrentUnitValue;
+    //单位值与刻度值之间的换算
+    private Scale mScale = new LinearScale(-1);
+    //刻度的最大最小单位值
+    private long mMinUnitValue;
+    private long mMaxUnitValue;
+
+    //长刻度的间隔
+    private int mValueInterval = 5;
+    //刻度文字的间隔
+    private int mTextInterval = 10;
+
+    //刻度线的间距
+    private int mLineMargin = 1;
+    //尺沿方向的长度
+    private int mLength;
+    //中间线的位置
+    private int mCenterXY;
+    //可显示的最大刻度数
+    private int mLineItems;
+
+    //偏移值
+    private double mScrollXY;
+
+    //相邻刻度线的最小间距，间距更小的刻度层级不绘制，0表示绘制所有刻度
+    private int mMinTickSpacing;
+    //当前层级下绘制的刻度间隔、其中长刻度的间隔及刻度文字的间隔
+    private int mTickStride = 1;
+    private int mLongTickStride = 5;
+    private int mLabelInterval = 10;
+
+    /**
+     * 修改换算方式，已有的刻度值按新的换算方式重新计算下标
+     */
+    public void setScale(Scale scale) {
+        double currentValue = getCurrentValue();
+        double minValue = getMinValue();
+        double maxValue = getMaxValue();
+
+        mScale = scale;
+        mCurrentUnitValue = toUnitValue(currentValue);
+        mMinUnitValue = toUnitValue(minValue);
+        mMaxUnitValue = toUnitValue(maxValue);
+    }
+
+    public Scale getScale() {
+        return mScale;
+    }
+
+    /**
+     * 使用线性刻度，单位值为10^unitExponent
+     */
+    public void setUnitExponent(int unitExponent) {
+        setScale(new LinearScale(unitExponent));
+    }
+
+    /**
+     * 单位值换算为刻度值，仅在对外接口处使用
+     */
+    public double toValue(long unitValue) {
+        return mScale.toValue(unitValue);
+    }
+
+    /**
+     * 刻度值换算为最接近的单位值，限制在[{@link #MIN_UNIT_VALUE}, {@link #MAX_UNIT_VALUE}]内
+     */
+    public long toUnitValue(double value) {
+        return clamp(mScale.toIndex(value));
+    }
+
+    public long getCurrentUnitValue() {
+        return mCurrentUnitValue;
+    }
+
+    public void setCurrentUnitValue(long currentUnitValue) {
+        mCurrentUnitValue = clamp(currentUnitValue);
+    }
+
+    public long getMinUnitValue() {
+        return mMinUnitValue;
+    }
+
+    public void setMinUnitValue(long minUnitValue) {
+        mMinUnitValue = clamp(minUnitValue);
+    }
+
+    public long getMaxUnitValue() {
+        return mMaxUnitValue;
+    }
+
+    public void setMaxUnitValue(long maxUnitValue) {
+        mMaxUnitValue = clamp(maxUnitValue);
+    }
+
+    private static long clamp(long unitValue) {
+        return Math.max(MIN_UNIT_VALUE, Math.min(MAX_UNIT_VALUE, unitValue));
+    }
+
+    public double getCurrentValue() {
+        return toValue(mCurrentUnitValue);
+    }
+
+    public void setCurrentValue(double currentValue) {
+        mCurrentUnitValue = toUnitValue(currentValue);
+    }
+
+    public double getMinValue() {
+        return toValue(mMinUnitValue);
+    }
+
+    public void setMinValue(double minValue) {
+        mMinUnitValue = toUnitValue(minValue);
+    }
+
+    public double getMaxValue() {
+        return toValue(mMaxUnitValue);
+    }
+
+    public void setMaxValue(double maxValue) {
+        mMaxUnitValue = toUnitValue(maxValue);
+    }
+
+    public int getValueInterval() {
+        return mValueInterval;
+    }
+
+    public void setValueInterval(int valueInterval) {
+        mValueInterval = valueInterval;
+        updateLevelOfDetail();
+    }
+
+    public int getTextInterval() {
+        return mTextInterval;
+    }
+
+    public void setTextInterval(int textInterval) {
+        mTextInterval = textInterval;
+        updateLevelOfDetail();
+    }
+
+    public int getLineMargin() {
+        return mLineMargin;
+    }
+
+    public void setLineMargin(int lineMargin) {
+        mLineMargin = lineMargin;
+        mLineItems = mLength / lineMargin;
+        updateLevelOfDetail();
+    }
+
+    public int getMinTickSpacing() {
+        return mMinTickSpacing;
+    }
+
+    /**
+     * 设置相邻刻度线的最小间距，刻度间距缩小到该值以下时只绘制更高层级的刻度
+     * 层级依次为每个刻度、长刻度、长刻度与文字刻度间隔的最小公倍数，之后每级为上一级的10倍，
+     * 每级的间隔都是下一级的整数倍，文字因此总落在绘制的刻度上，
+     * 每帧绘制的刻度线数因此不超过尺长度/最小间距，与刻度间距无关
+     *
+     * @param minTickSpacing 单位px，0表示始终绘制所有刻度
+     */
+    public void setMinTickSpacing(int minTickSpacing) {
+        mMinTickSpacing = minTickSpacing;
+        updateLevelOfDetail();
+    }
+
+    /**
+     * 第level级的刻度间隔
+     */
+    private long levelInterval(int level) {
+        switch (level) {
+            case 0:
+                return 1;
+            case 1:
+                return mValueInterval;
+            case 2:
+                //文字间隔不是长刻度间隔的整数倍时取两者的最小公倍数
+                return mValueInterval / gcd(mValueInterval, mTextInterval) * (long) mTextInterval;
+            default:
+                return levelInterval(level - 1) * 10;
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 选择间距不小于最小间距的最低层级，最低层级绘制所有刻度，文字间隔即为文字刻度间隔，
+     * 更高层级的长刻度及文字都取上一级的间隔
+     */
+    private void updateLevelOfDetail() {
+        int level = 0;
+        while (levelInterval(level) * mLineMargin < mMinTickSpacing && levelInterval(level + 2) <= MAX_LEVEL_INTERVAL)
+            level++;
+        mTickStride = (int) levelInterval(level);
+        mLongTickStride = (int) levelInterval(level + 1);
+        mLabelInterval = level == 0 ? mTextInterval : (int) levelInterval(level + 1);
+    }
+
+    /**
+     * @return 当前层级下绘制的刻度间隔，未设置最小间距时为1
+     */
+    public int getTickStride() {
+        return mTickStride;
+    }
+
+    /**
+     * @return 当前层级下刻度文字的间隔，未设置最小间距时为{@link #getTextInterval()}
+     */
+    public int getLabelInterval() {
+        return mLabelInterval;
+    }
+
+    /**
+     * 设置尺沿方向的长度，计算中间线的位置及可显示的最大刻度数
+     */
+    public void setLength(int length) {
+        mLength = length;
+        mCenterXY = length / 2;
+        mLineItems = length / mLineMargin;
+    }
+
+    public int getCenterXY() {
+        return mCenterXY;
+    }
+
+    public int getLineItems() {
+        return mLineItems;
+    }
+
+    public double getScrollXY() {
+        return mScrollXY;
+    }
+
+    /**
+     * 计算偏移后的数值并重新计算偏移值
+     * 超出数值范围时停在边界上，在范围内的偏移不受影响
+     *
+     * @return 实际的偏移量，偏移值取整及停在边界上时与distanceXY不同，以其相反数偏移可准确撤销
+     */
+    public double scroll(float distanceXY) {
+        long startUnitValue = mCurrentUnitValue;
+        double startScrollXY = mScrollXY;
+        mScrollXY += distanceXY;
+
+        //偏移值取整后换算为单位值的变化量，向0取整
+        if (mScrollXY > 0)
+            mScrollXY = Math.round(mScrollXY);
+        else
+            mScrollXY = -Math.round(-mScrollXY);
+        long delta = (long) (mScrollXY / mLineMargin);
+        mCurrentUnitValue += Math.max(-MAX_UNIT_VALUE * 2, Math.min(MAX_UNIT_VALUE * 2, delta));
+
+        //重新计算偏移值
+        mScrollXY %= mLineMargin;
+
+        //若偏移后的位置超出范围，则停在边界上
+        if (mCurrentUnitValue < mMinUnitValue || (mCurrentUnitValue == mMinUnitValue && mScrollXY < 0)) {
+            mCurrentUnitValue = mMinUnitValue;
+            mScrollXY = 0;
+        } else if (mCurrentUnitValue > mMaxUnitValue || (mCurrentUnitValue == mMaxUnitValue && mScrollXY > 0)) {
+            mCurrentUnitValue = mMaxUnitValue;
+            mScrollXY = 0;
+        }
+        return (double) (mCurrentUnitValue - startUnitValue) * mLineMargin + (mScrollXY - startScrollXY);
+    }
+
+    /**
+     * 清除偏移值，停在当前值对应的刻度上
+     */
+    public void resetScroll() {
+        mScrollXY = 0;
+    }
+
+    /**
+     * 将偏移值限制在一个刻度间距内
+     *
+     * @return 是否仍有偏移，即是否需要校准
+     */
+    public boolean normalizeScroll() {
+        if (mScrollXY == 0)
+            return false;
+        mScrollXY %= mLineMargin;
+        return mScrollXY != 0;
+    }
+
+    /**
+     * 计算从当前位置滑动到最小值的距离，用作scroller的下界
+     * 以当前位置为原点，因此只与可滑动的距离有关，与数值范围的绝对大小无关
+     *
+     * @param limit 距离的上限，超出时截断，保证scroller的int坐标不溢出
+     * @return 滑动距离，不大于0
+     */
+    public int getDistanceToMin(int limit) {
+        double distance = (double) (mCurrentUnitValue - mMinUnitValue) * mLineMargin + mScrollXY;
+        return -(int) Math.max(0, Math.min(limit, distance));
+    }
+
+    /**
+     * 计算从当前位置滑动到最大值的距离，用作scroller的上界
+     *
+     * @param limit 距离的上限，超出时截断，保证scroller的int坐标不溢出
+     * @return 滑动距离，不小于0
+     */
+    public int getDistanceToMax(int limit) {
+        double distance = (double) (mMaxUnitValue - mCurrentUnitValue) * mLineMargin - mScrollXY;
+        return (int) Math.max(0, Math.min(limit, distance));
+    }
+
+    /**
+     * 将fling预计的滑动距离调整为恰好停在刻度上的距离，并限制在数值范围内
+     * scroller按调整后的终点运动，fling结束时偏移值即为0，不需要再校准
+     *
+     * @param distance     scroller根据初速度预计的滑动距离
+     * @param snapInterval 停靠的刻度间隔，1为任意刻度，{@link #getValueInterval()}为长刻度
+     * @param limit        距离的上限，超出时截断，保证scroller的int坐标不溢出
+     * @return 调整后的滑动距离
+     */
+    public int snapFlingDistance(int distance, int snapInterval, int limit) {
+        long target = mCurrentUnitValue + Math.round((mScrollXY + distance) / mLineMargin);
+        if (snapInterval > 1) {
+            long remainder = target % snapInterval;
+            if (remainder < 0)
+                remainder += snapInterval;
+            target += remainder * 2 >= snapInterval ? snapInterval - remainder : -remainder;
+        }
+        target = Math.max(mMinUnitValue, Math.min(mMaxUnitValue, target));
+
+        double snapped = (double) (target - mCurrentUnitValue) * mLineMargin - mScrollXY;
+        return (int) Math.max(-limit, Math.min(limit, snapped));
+    }
+
+    /**
+     * 按滑动距离预计到达的刻度，限制在数值范围内
+     *
+     * @param distance 从当前位置开始的滑动距离
+     */
+    public long getTargetUnitValue(int distance) {
+        long target = mCurrentUnitValue + Math.round((mScrollXY + distance) / mLineMargin);
+        return Math.max(mMinUnitValue, Math.min(mMaxUnitValue, target));
+    }
+
+    /**
+     * 从当前值移动units个刻度后的单位值，限制在数值范围内
+     */
+    public long getStepTarget(long units) {
+        //当前值不超过MAX_UNIT_VALUE，先限制units使相加不溢出
+        units = Math.max(-2 * MAX_UNIT_VALUE, Math.min(2 * MAX_UNIT_VALUE, units));
+        return clampToRange(mCurrentUnitValue + units);
+    }
+
+    /**
+     * 将单位值限制在数值范围内
+     */
+    public long clampToRange(long unitValue) {
+        return Math.max(mMinUnitValue, Math.min(mMaxUnitValue, unitValue));
+    }
+
+    /**
+     * 从当前位置滑动到指定刻度的距离，用于停靠到标记等任意刻度上
+     *
+     * @param limit 距离的上限，超出时截断，保证scroller的int坐标不溢出
+     */
+    public int getDistanceTo(long unitValue, int limit) {
+        double distance = (double) (unitValue - mCurrentUnitValue) * mLineMargin - mScrollXY;
+        return (int) Math.max(-limit, Math.min(limit, distance));
+    }
+
+    /**
+     * 根据偏移值及四舍五入原则计算校准需要滑动的距离
+     */
+    public double getCorrectionDistance() {
+        if (mScrollXY > 0) {
+            if (mScrollXY <= mLineMargin / 2)
+                return -mScrollXY;
+            else
+                return mLineMargin - mScrollXY;
+        } else {
+            if (-mScrollXY <= mLineMargin / 2)
+                return -mScrollXY;
+            else
+                return -(mLineMargin + mScrollXY);
+        }
+    }
+
+    /**
+     * @return 中间基准线前半部分最多能绘制的刻度线数
+     */
+    public int getHalfCount() {
+        return mCenterXY / mLineMargin;
+    }
+
+    /**
+     * @return 第一条可见刻度线的单位值
+     */
+    public long getFirstUnitValue() {
+        return mCurrentUnitValue - getHalfCount();
+    }
+
+    /**
+     * @return 第一条可见刻度线的坐标值
+     */
+    public int getFirstXY() {
+        return (int) (mCenterXY - getHalfCount() * mLineMargin - mScrollXY);
+    }
+
+    public boolean isInRange(long unitValue) {
+        return unitValue >= mMinUnitValue && unitValue <= mMaxUnitValue;
+    }
+
+    /**
+     * 可见刻度中第一条在数值范围内的刻度，相对于{@link #getFirstUnitValue()}的序号
+     * 与{@link #getVisibleEnd()}一起使每帧只遍历可见且在数值范围内的刻度，开销与数值范围的大小无关
+     */
+    public int getVisibleStart() {
+        long offset = mMinUnitValue - getFirstUnitValue();
+        return (int) Math.max(0, Math.min(mLineItems, offset));
+    }
+
+    /**
+     * @return 可见刻度中最后一条在数值范围内的刻度的序号+1，不大于{@link #getLineItems()}
+     */
+    public int getVisibleEnd() {
+        long offset = mMaxUnitValue - getFirstUnitValue() + 1;
+        return (int) Math.max(0, Math.min(mLineItems, offset));
+    }
+
+    /**
+     * @return 是否为当前层级下的长刻度，未设置最小间距时即每{@link #getValueInterval()}个刻度一个长刻度
+     */
+    public boolean isLongTick(long unitValue) {
+        return unitValue % mLongTickStride == 0;
+    }
+
+    /**
+     * 可见且在数值范围内的第一条需绘制的刻度，即单位值为{@link #getTickStride()}整数倍的刻度，
+     * 相对于{@link #getFirstUnitValue()}的序号
+     */
+    public int getVisibleTickStart() {
+        int start = getVisibleStart();
+        long remainder = (getFirstUnitValue() + start) % mTickStride;
+        if (remainder < 0)
+            remainder += mTickStride;
+        return remainder == 0 ? start : start + mTickStride - (int) remainder;
+    }
+
+    /**
+     * 透明度根据距离中间基准线的位置线性计算
+     *
+     * @return 透明度，不大于255，小于等于0时为完全透明
+     */
+    public int alphaAt(int xy) {
+        return 255 - 255 * Math.abs(xy - mCenterXY) / mCenterXY;
+    }
+
+    /**
+     * 计算刻度线所属的透明度分组
+     *
+     * @param buckets 分组数
+     * @return 分组下标，完全透明时返回-1
+     */
+    public int alphaBucket(int xy, int buckets) {
+        int alpha = alphaAt(xy);
+        if (alpha <= 0)
+            return -1;
+        return alpha * buckets / 256;
+    }
+
+    /**
+     * 计算两侧刻度文字与中间值相差的单位值，为刻度文字间隔的整数倍，且保证文字在View内
+     *
+     * @return 相差的单位值，View过小无法显示时返回0
+     */
+    public int getSideTextInterval() {
+        int interval = (int) Math.ceil(getHalfCount() * 1f / mLabelInterval - 1);
+        if (interval <= 0)
+            return 0;
+        return interval * mLabelInterval;
+    }
+}
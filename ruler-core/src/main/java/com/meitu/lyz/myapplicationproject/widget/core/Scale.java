@@ -0,0 +1,31 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 刻度下标与刻度值之间的映射
+ * 刻度在尺上等间距排列，相邻刻度的下标相差1，坐标与下标之间始终为线性关系，
+ * 因此刻度的遍历及校准都只需要整数运算，刻度值只在显示文字及对外接口处换算，
+ * 每个实现的换算都为常数时间（分段线性为分段数的对数时间）
+ */
+public interface Scale {
+
+    //文字的最大字符数（不含单位）
+    int MAX_LABEL_CHARS = 48;
+
+    /**
+     * @return 下标对应的刻度值
+     */
+    double toValue(long index);
+
+    /**
+     * @return 与刻度值最接近的刻度下标
+     */
+    long toIndex(double value);
+
+    /**
+     * 将下标对应的刻度值格式化到dst的起始位置，不产生新对象
+     *
+     * @param dst 长度至少为{@link #MAX_LABEL_CHARS}
+     * @return 写入的字符数
+     */
+    int format(long index, char[] dst);
+}
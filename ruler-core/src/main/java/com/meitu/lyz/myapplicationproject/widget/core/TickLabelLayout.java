@@ -0,0 +1,99 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+/**
+ * 逐刻度文字模式下的文字布局，每隔{@link RulerCore#getLabelInterval()}个刻度一个文字
+ * 只遍历可见且在数值范围内的文字刻度，剔除完全透明、与中间文字重叠及与前一个文字重叠的文字，
+ * 开销只与可见文字数有关
+ * <p>
+ * 结果写入预先分配的数组，可见文字数不增加时布局过程不产生新对象
+ */
+public final class TickLabelLayout {
+
+    /**
+     * 文字沿尺方向的长度，水平尺为文字宽度，垂直尺为文字高度
+     */
+    public interface Measurer {
+        float measure(long unitValue);
+    }
+
+    private long[] mUnitValues = new long[0];
+    private int[] mXYs = new int[0];
+    private int[] mAlphas = new int[0];
+    private int mCount;
+
+    /**
+     * 计算当前帧需要绘制的文字
+     *
+     * @param centerExtent 中间文字沿尺方向的长度
+     * @param centerGap    与中间文字的最小间距
+     * @param labelGap     相邻文字的最小间距
+     * @return 需要绘制的文字数
+     */
+    public int layout(RulerCore core, Measurer measurer, float centerExtent, float centerGap, float labelGap) {
+        int interval = core.getLabelInterval();
+        int start = core.getVisibleStart();
+        int end = core.getVisibleEnd();
+        long firstUnitValue = core.getFirstUnitValue();
+        int lineMargin = core.getLineMargin();
+        ensureCapacity((end - start) / interval + 1);
+
+        //第一个文字刻度相对于第一条可见刻度的序号
+        long remainder = (firstUnitValue + start) % interval;
+        if (remainder < 0)
+            remainder += interval;
+        int i = remainder == 0 ? start : start + interval - (int) remainder;
+
+        int centerXY = core.getCenterXY();
+        float centerHalf = centerExtent / 2;
+        float lastEnd = Float.NEGATIVE_INFINITY;
+        int count = 0;
+        int xy = core.getFirstXY() + i * lineMargin;
+        for (; i < end; i += interval, xy += interval * lineMargin) {
+            int alpha = core.alphaAt(xy);
+            if (alpha <= 0)
+                continue;
+
+            long unitValue = firstUnitValue + i;
+            float half = measurer.measure(unitValue) / 2;
+            if (Math.abs(xy - centerXY) <= half + centerHalf + centerGap)
+                continue;
+            if (xy - half < lastEnd + labelGap)
+                continue;
+            lastEnd = xy + half;
+
+            mUnitValues[count] = unitValue;
+            mXYs[count] = xy;
+            mAlphas[count] = alpha;
+            count++;
+        }
+        mCount = count;
+        return count;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public long getUnitValue(int index) {
+        return mUnitValues[index];
+    }
+
+    public int getXY(int index) {
+        return mXYs[index];
+    }
+
+    /**
+     * @return 文字的透明度，与刻度线使用同样的渐变 [1-255]
+     */
+    public int getAlpha(int index) {
+        return mAlphas[index];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mUnitValues.length >= capacity)
+            return;
+        mUnitValues = new long[capacity];
+        mXYs = new int[capacity];
+        mAlphas = new int[capacity];
+    }
+}
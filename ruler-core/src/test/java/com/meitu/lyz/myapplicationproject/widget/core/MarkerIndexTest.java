@@ -0,0 +1,67 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MarkerIndex}的增删及范围查询测试
+ */
+public class MarkerIndexTest {
+
+    @Test
+    public void addRemove_keepsSortedSet() {
+        MarkerIndex index = new MarkerIndex();
+        assertTrue(index.add(30));
+        assertTrue(index.add(-10));
+        assertTrue(index.add(20));
+        assertFalse(index.add(20));
+        for (int i = 0; i < 20; i++)
+            index.add(100 + i);
+
+        assertEquals(23, index.size());
+        assertEquals(-10, index.get(0));
+        assertEquals(20, index.get(1));
+        assertEquals(119, index.get(22));
+
+        assertTrue(index.remove(20));
+        assertFalse(index.remove(20));
+        assertFalse(index.contains(20));
+        assertEquals(30, index.get(1));
+    }
+
+    @Test
+    public void addAll_mergesAndDropsDuplicates() {
+        MarkerIndex index = new MarkerIndex();
+        index.add(5);
+        index.add(15);
+        long[] values = {40, 5, 10, 10, -3};
+        index.addAll(values);
+
+        long[] expected = {-3, 5, 10, 15, 40};
+        assertEquals(expected.length, index.size());
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], index.get(i));
+        assertEquals(40, values[0]);
+    }
+
+    @Test
+    public void lowerBoundAndNearest() {
+        MarkerIndex index = new MarkerIndex();
+        index.addAll(new long[]{0, 10, 20});
+
+        assertEquals(0, index.lowerBound(-5));
+        assertEquals(1, index.lowerBound(10));
+        assertEquals(2, index.lowerBound(11));
+        assertEquals(3, index.lowerBound(21));
+
+        assertEquals(1, index.nearest(12, 5));
+        assertEquals(2, index.nearest(17, 5));
+        //距离相同时取较小的
+        assertEquals(0, index.nearest(5, 5));
+        assertEquals(-1, index.nearest(5, 4));
+        assertEquals(-1, index.nearest(30, 9));
+    }
+}
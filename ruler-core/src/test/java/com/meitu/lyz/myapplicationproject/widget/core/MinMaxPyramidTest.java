@@ -0,0 +1,57 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MinMaxPyramid}的分组最小最大值测试
+ */
+public class MinMaxPyramidTest {
+
+    @Test
+    public void levelFor() {
+        assertEquals(0, MinMaxPyramid.levelFor(1));
+        assertEquals(1, MinMaxPyramid.levelFor(2));
+        assertEquals(2, MinMaxPyramid.levelFor(3));
+        assertEquals(2, MinMaxPyramid.levelFor(4));
+        assertEquals(20, MinMaxPyramid.levelFor(1 << 20));
+    }
+
+    @Test
+    public void binsMatchBruteForce() {
+        float[] data = new float[1000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (i * 7919) % 1013 - 500;
+        MinMaxPyramid pyramid = MinMaxPyramid.build(data);
+
+        assertEquals(11, pyramid.getLevelCount());
+        for (int level = 0; level < pyramid.getLevelCount(); level++) {
+            int span = 1 << level;
+            assertEquals((data.length + span - 1) / span, pyramid.getBinCount(level));
+            for (int bin = 0; bin < pyramid.getBinCount(level); bin++) {
+                float min = Float.POSITIVE_INFINITY;
+                float max = Float.NEGATIVE_INFINITY;
+                for (int i = bin * span; i < Math.min(data.length, (bin + 1) * span); i++) {
+                    min = Math.min(min, data[i]);
+                    max = Math.max(max, data[i]);
+                }
+                assertEquals(min, pyramid.getMin(level, bin), 0);
+                assertEquals(max, pyramid.getMax(level, bin), 0);
+            }
+        }
+        assertEquals(-500, pyramid.getMinValue(), 0);
+        assertEquals(512, pyramid.getMaxValue(), 0);
+    }
+
+    @Test
+    public void nanIsMissing() {
+        MinMaxPyramid pyramid = MinMaxPyramid.build(new double[]{Double.NaN, Double.NaN, 3, Double.NaN, 1});
+        assertTrue(Float.isNaN(pyramid.getMin(1, 0)));
+        assertEquals(3, pyramid.getMax(1, 1), 0);
+        assertEquals(1, pyramid.getMin(1, 2), 0);
+        assertEquals(1, pyramid.getMinValue(), 0);
+        assertEquals(3, pyramid.getMaxValue(), 0);
+    }
+}
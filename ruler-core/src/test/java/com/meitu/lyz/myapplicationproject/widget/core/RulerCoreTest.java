@@ -0,0 +1,308 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link RulerCore}的滑动及布局计算测试
+ */
+public class RulerCoreTest {
+
+    private RulerCore mCore;
+
+    @Before
+    public void setUp() {
+        mCore = new RulerCore();
+        mCore.setUnitExponent(-1);
+        mCore.setMinValue(0);
+        mCore.setMaxValue(100);
+        mCore.setCurrentValue(50);
+        mCore.setLineMargin(10);
+        mCore.setLength(1000);
+    }
+
+    @Test
+    public void geometry() {
+        assertEquals(500, mCore.getCenterXY());
+        assertEquals(100, mCore.getLineItems());
+        assertEquals(50, mCore.getHalfCount());
+        assertEquals(450, mCore.getFirstUnitValue());
+        assertEquals(0, mCore.getFirstXY());
+    }
+
+    @Test
+    public void scrollAccumulatesWholeTicks() {
+        mCore.scroll(25);
+        assertEquals(502, mCore.getCurrentUnitValue());
+        assertEquals(5, mCore.getScrollXY(), 0);
+        assertEquals(-5, mCore.getFirstXY());
+
+        mCore.scroll(-17);
+        assertEquals(501, mCore.getCurrentUnitValue());
+        assertEquals(-2, mCore.getScrollXY(), 0);
+    }
+
+    @Test
+    public void scrollClampsToRange() {
+        mCore.scroll(1e6f);
+        assertEquals(1000, mCore.getCurrentUnitValue());
+        assertEquals(0, mCore.getScrollXY(), 0);
+
+        mCore.scroll(-1e6f);
+        assertEquals(0, mCore.getCurrentUnitValue());
+        assertEquals(0, mCore.getScrollXY(), 0);
+    }
+
+    @Test
+    public void scrollReturnsAppliedDistance_undoIsExact() {
+        //距最大值3个刻度，预测的位移被截断在边界上
+        mCore.setCurrentUnitValue(997);
+        mCore.scroll(4);
+        double applied = mCore.scroll(40);
+        assertEquals(26, applied, 0);
+        assertEquals(1000, mCore.getCurrentUnitValue());
+
+        //回到原来的位置，即997个刻度加4px
+        mCore.scroll((float) -applied);
+        assertEquals(9974, mCore.getCurrentUnitValue() * 10 + mCore.getScrollXY(), 0);
+    }
+
+    @Test
+    public void correctionRoundsToNearestTick() {
+        mCore.scroll(4);
+        assertTrue(mCore.normalizeScroll());
+        assertEquals(-4, mCore.getCorrectionDistance(), 0);
+
+        mCore.scroll(2);
+        assertEquals(4, mCore.getCorrectionDistance(), 0);
+
+        mCore.scroll(-14);
+        assertEquals(-8, mCore.getScrollXY(), 0);
+        assertEquals(-2, mCore.getCorrectionDistance(), 0);
+
+        mCore.scroll(8);
+        assertFalse(mCore.normalizeScroll());
+    }
+
+    @Test
+    public void alphaFadesFromCenter() {
+        assertEquals(255, mCore.alphaAt(500));
+        assertEquals(0, mCore.alphaAt(0));
+        assertEquals(15, mCore.alphaBucket(500, 16));
+        assertEquals(-1, mCore.alphaBucket(1000, 16));
+    }
+
+    @Test
+    public void sideTextInterval() {
+        assertEquals(40, mCore.getSideTextInterval());
+        mCore.setLength(100);
+        assertEquals(0, mCore.getSideTextInterval());
+    }
+
+    @Test
+    public void unitExponentRescalesValues() {
+        mCore.setUnitExponent(-3);
+        assertEquals(50000, mCore.getCurrentUnitValue());
+        assertEquals(100000, mCore.getMaxUnitValue());
+        assertEquals(50.0, mCore.getCurrentValue(), 0);
+
+        mCore.setCurrentValue(0.1 + 0.2);
+        assertEquals(300, mCore.getCurrentUnitValue());
+        assertEquals(0.3, mCore.getCurrentValue(), 0);
+    }
+
+    @Test
+    public void hugeRange_doesNotOverflow() {
+        //0-10,000,000，精度0.01
+        mCore.setUnitExponent(-2);
+        mCore.setMinValue(0);
+        mCore.setMaxValue(1e7);
+        mCore.setCurrentValue(5e6);
+        assertEquals(1000000000L, mCore.getMaxUnitValue());
+        assertEquals(500000000L, mCore.getCurrentUnitValue());
+
+        //毫秒时间戳
+        mCore.setMinUnitValue(0);
+        mCore.setMaxUnitValue(4102444800000L);
+        mCore.setCurrentUnitValue(1523577600000L);
+        mCore.scroll(25);
+        assertEquals(1523577600002L, mCore.getCurrentUnitValue());
+        assertEquals(1523577599952L, mCore.getFirstUnitValue());
+
+        //scroller的边界以当前位置为原点并被截断
+        assertEquals(-Integer.MAX_VALUE / 2, mCore.getDistanceToMin(Integer.MAX_VALUE / 2));
+        assertEquals(Integer.MAX_VALUE / 2, mCore.getDistanceToMax(Integer.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void unitValuesAreClamped() {
+        mCore.setMaxUnitValue(Long.MAX_VALUE);
+        mCore.setMinUnitValue(Long.MIN_VALUE);
+        assertEquals(RulerCore.MAX_UNIT_VALUE, mCore.getMaxUnitValue());
+        assertEquals(RulerCore.MIN_UNIT_VALUE, mCore.getMinUnitValue());
+
+        mCore.setCurrentUnitValue(Long.MAX_VALUE);
+        mCore.scroll(100);
+        assertEquals(RulerCore.MAX_UNIT_VALUE, mCore.getCurrentUnitValue());
+        assertEquals(51, mCore.getVisibleEnd());
+    }
+
+    @Test
+    public void stepTarget_stopsAtBothEnds() {
+        //范围0-1000
+        mCore.setCurrentUnitValue(995);
+        assertEquals(1000, mCore.getStepTarget(10));
+        mCore.setCurrentUnitValue(1000);
+        assertEquals(1000, mCore.getStepTarget(1));
+        assertEquals(1000, mCore.getStepTarget(Long.MAX_VALUE));
+
+        mCore.setCurrentUnitValue(5);
+        assertEquals(0, mCore.getStepTarget(-10));
+        mCore.setCurrentUnitValue(0);
+        assertEquals(0, mCore.getStepTarget(-1));
+        assertEquals(0, mCore.getStepTarget(Long.MIN_VALUE));
+
+        assertEquals(10, mCore.getStepTarget(10));
+        assertEquals(1000, mCore.clampToRange(1005));
+        assertEquals(0, mCore.clampToRange(-5));
+    }
+
+    @Test
+    public void distanceToBounds() {
+        mCore.scroll(5);
+        //当前值500，范围0-1000，间距10
+        assertEquals(-5005, mCore.getDistanceToMin(Integer.MAX_VALUE));
+        assertEquals(4995, mCore.getDistanceToMax(Integer.MAX_VALUE));
+        assertEquals(-100, mCore.getDistanceToMin(100));
+    }
+
+    @Test
+    public void visibleRangeStopsAtBounds() {
+        assertEquals(0, mCore.getVisibleStart());
+        assertEquals(100, mCore.getVisibleEnd());
+
+        mCore.setCurrentUnitValue(20);
+        assertEquals(30, mCore.getVisibleStart());
+        assertEquals(100, mCore.getVisibleEnd());
+
+        mCore.setCurrentUnitValue(990);
+        assertEquals(0, mCore.getVisibleStart());
+        assertEquals(61, mCore.getVisibleEnd());
+    }
+
+    @Test
+    public void snapFlingDistance_landsOnTick() {
+        mCore.scroll(3);
+        //当前值500，偏移3，预计滑动124，停在513
+        int distance = mCore.snapFlingDistance(124, 1, Integer.MAX_VALUE);
+        assertEquals(127, distance);
+        mCore.scroll(distance);
+        assertEquals(513, mCore.getCurrentUnitValue());
+        assertEquals(0, mCore.getScrollXY(), 0);
+
+        //停在长刻度上
+        distance = mCore.snapFlingDistance(-34, 5, Integer.MAX_VALUE);
+        assertEquals(-30, distance);
+        distance = mCore.snapFlingDistance(-44, 5, Integer.MAX_VALUE);
+        assertEquals(-30, distance);
+        distance = mCore.snapFlingDistance(-64, 5, Integer.MAX_VALUE);
+        assertEquals(-80, distance);
+    }
+
+    @Test
+    public void snapFlingDistance_clampsToRange() {
+        assertEquals(5000, mCore.snapFlingDistance(100000, 1, Integer.MAX_VALUE));
+        assertEquals(-5000, mCore.snapFlingDistance(-100000, 5, Integer.MAX_VALUE));
+        assertEquals(-100, mCore.snapFlingDistance(-100000, 5, 100));
+    }
+
+    @Test
+    public void scroll_movesSmoothlyNearBounds() {
+        //停在最小值上方5px处，向最小值滑动时不应直接跳到边界
+        mCore.setCurrentUnitValue(0);
+        mCore.scroll(5);
+        assertEquals(5, mCore.getScrollXY(), 0);
+        mCore.scroll(-2);
+        assertEquals(0, mCore.getCurrentUnitValue());
+        assertEquals(3, mCore.getScrollXY(), 0);
+        mCore.scroll(-7);
+        assertEquals(0, mCore.getScrollXY(), 0);
+
+        mCore.setCurrentUnitValue(1000);
+        mCore.scroll(-5);
+        mCore.scroll(2);
+        assertEquals(1000, mCore.getCurrentUnitValue());
+        assertEquals(-3, mCore.getScrollXY(), 0);
+    }
+
+    @Test
+    public void levelOfDetail_skipsDenseLevels() {
+        //未设置最小间距时绘制所有刻度
+        assertEquals(1, mCore.getTickStride());
+        assertEquals(10, mCore.getLabelInterval());
+        assertTrue(mCore.isLongTick(455));
+
+        mCore.setMinTickSpacing(8);
+        mCore.setLineMargin(2);
+        assertEquals(5, mCore.getTickStride());
+        assertEquals(10, mCore.getLabelInterval());
+        assertFalse(mCore.isLongTick(455));
+        assertTrue(mCore.isLongTick(460));
+
+        mCore.setLineMargin(1);
+        assertEquals(10, mCore.getTickStride());
+        assertEquals(100, mCore.getLabelInterval());
+        assertTrue(mCore.isLongTick(500));
+        assertFalse(mCore.isLongTick(460));
+    }
+
+    @Test
+    public void levelOfDetail_labelsStayOnDrawnTicks() {
+        mCore.setMinTickSpacing(8);
+        mCore.setLineMargin(2);
+
+        //文字间隔不是长刻度间隔的整数倍
+        mCore.setValueInterval(5);
+        mCore.setTextInterval(7);
+        assertEquals(5, mCore.getTickStride());
+        assertEquals(35, mCore.getLabelInterval());
+        assertTrue(mCore.isLongTick(35));
+        assertFalse(mCore.isLongTick(7));
+
+        //文字间隔小于长刻度间隔时，高层级的间隔不会变小
+        mCore.setValueInterval(10);
+        mCore.setTextInterval(4);
+        assertEquals(10, mCore.getTickStride());
+        assertEquals(20, mCore.getLabelInterval());
+        mCore.setLineMargin(1);
+        assertEquals(10, mCore.getTickStride());
+        assertEquals(20, mCore.getLabelInterval());
+        mCore.setMinTickSpacing(15);
+        assertEquals(20, mCore.getTickStride());
+        assertEquals(200, mCore.getLabelInterval());
+
+        for (int lineMargin = 1; lineMargin <= 20; lineMargin++) {
+            mCore.setLineMargin(lineMargin);
+            assertEquals(0, mCore.getLabelInterval() % mCore.getTickStride());
+        }
+    }
+
+    @Test
+    public void levelOfDetail_boundsVisibleTicks() {
+        mCore.setMinTickSpacing(8);
+        mCore.setMinValue(-1e9);
+        mCore.setMaxValue(1e9);
+        for (int lineMargin = 1; lineMargin <= 20; lineMargin++) {
+            mCore.setLineMargin(lineMargin);
+            int stride = mCore.getTickStride();
+            int start = mCore.getVisibleTickStart();
+            assertEquals(0, (mCore.getFirstUnitValue() + start) % stride);
+            int ticks = (mCore.getVisibleEnd() - start + stride - 1) / stride;
+            assertTrue(ticks <= 1000 / 8 + 1);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * 各{@link Scale}实现的换算及格式化测试
+ */
+public class ScaleTest {
+
+    @Test
+    public void linear_roundTrip() {
+        Scale scale = new LinearScale(-2);
+        assertEquals(12.34, scale.toValue(1234), 0);
+        assertEquals(1234, scale.toIndex(12.34));
+        assertEquals("12.34", label(scale, 1234));
+        assertEquals("12.3", label(scale, 1230));
+        assertEquals("700.0", label(new LinearScale(2), 7));
+    }
+
+    @Test
+    public void linear_exponentBoundsFitLabel() {
+        assertEquals("-0.0009223372036854775808",
+                label(new LinearScale(LinearScale.MIN_EXPONENT), Long.MIN_VALUE));
+        assertEquals(44, label(new LinearScale(LinearScale.MAX_EXPONENT), Long.MIN_VALUE).length());
+        assertEquals(Scale.MAX_LABEL_CHARS, LinearScale.format(Long.MIN_VALUE, -45, new char[Scale.MAX_LABEL_CHARS]));
+        assertEquals(Scale.MAX_LABEL_CHARS, LinearScale.format(Long.MIN_VALUE, 26, new char[Scale.MAX_LABEL_CHARS]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linear_rejectsExponentBelowRange() {
+        new LinearScale(LinearScale.MIN_EXPONENT - 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linear_rejectsExponentAboveRange() {
+        new LinearScale(LinearScale.MAX_EXPONENT + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void linear_formatRejectsOverlongLabel() {
+        LinearScale.format(1, -50, new char[Scale.MAX_LABEL_CHARS]);
+    }
+
+    @Test
+    public void log_coversDecadesWithFixedTicks() {
+        Scale scale = new LogScale(10, 3);
+        assertEquals(0, scale.toIndex(1));
+        assertEquals(10, scale.toIndex(10));
+        assertEquals(-60, scale.toIndex(1e-6));
+        assertEquals(30, scale.toIndex(1000));
+        assertEquals(13, scale.toIndex(20));
+        assertEquals(1000.0, scale.toValue(30), 0);
+        assertEquals(1e-6, scale.toValue(-60), 0);
+
+        for (long index = -60; index <= 60; index++)
+            assertEquals(index, scale.toIndex(scale.toValue(index)));
+    }
+
+    @Test
+    public void log_formatsSignificantDigits() {
+        Scale scale = new LogScale(10, 3);
+        assertEquals("1.0", label(scale, 0));
+        assertEquals("2.0", label(scale, 3));
+        assertEquals("1.26", label(scale, 1));
+        assertEquals("20000.0", label(scale, 43));
+        assertEquals("0.001", label(scale, -30));
+        assertEquals("0.00158", label(scale, -28));
+        assertEquals("1.0E-25", label(scale, -250));
+        assertEquals("3.16E20", label(scale, 205));
+    }
+
+    @Test
+    public void log_nonPositiveValueClamps() {
+        Scale scale = new LogScale(10, 3);
+        assertEquals(scale.toIndex(Double.MIN_NORMAL), scale.toIndex(0));
+        assertEquals(scale.toIndex(Double.MIN_NORMAL), scale.toIndex(-5));
+    }
+
+    @Test
+    public void piecewise_mapsEachSegment() {
+        Scale scale = new PiecewiseLinearScale(new double[]{0, 1, 10, 100}, new double[]{0.01, 0.1, 1});
+        assertEquals(0, scale.toIndex(0));
+        assertEquals(100, scale.toIndex(1));
+        assertEquals(190, scale.toIndex(10));
+        assertEquals(280, scale.toIndex(100));
+        assertEquals(0.25, scale.toValue(25), 0);
+        assertEquals(1.1, scale.toValue(101), 0);
+        assertEquals(55.0, scale.toValue(235), 0);
+
+        assertEquals("0.25", label(scale, 25));
+        assertEquals("1.1", label(scale, 101));
+        assertEquals("55.0", label(scale, 235));
+        //超出范围时按首末段外推
+        assertEquals(-0.01, scale.toValue(-1), 0);
+        assertEquals(101.0, scale.toValue(281), 0);
+
+        for (long index = 0; index <= 280; index++)
+            assertEquals(index, scale.toIndex(scale.toValue(index)));
+    }
+
+    @Test
+    public void piecewise_equalByBreakpointsAndSteps() {
+        Scale scale = new PiecewiseLinearScale(new double[]{0, 1, 10}, new double[]{0.01, 0.1});
+        Scale same = new PiecewiseLinearScale(new double[]{0, 1, 10}, new double[]{0.01, 0.1});
+        assertEquals(scale, same);
+        assertEquals(scale.hashCode(), same.hashCode());
+        assertNotEquals(scale, new PiecewiseLinearScale(new double[]{0, 1, 10}, new double[]{0.01, 1}));
+        assertNotEquals(scale, new PiecewiseLinearScale(new double[]{0, 2, 10}, new double[]{0.01, 0.1}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void piecewise_rejectsMismatchedSegments() {
+        new PiecewiseLinearScale(new double[]{0, 1}, new double[]{0.1, 1});
+    }
+
+    @Test
+    public void rulerCore_keepsValuesWhenScaleChanges() {
+        RulerCore core = new RulerCore();
+        core.setUnitExponent(0);
+        core.setMinValue(20);
+        core.setMaxValue(20000);
+        core.setCurrentValue(1000);
+
+        core.setScale(new LogScale(10, 3));
+        assertEquals(13, core.getMinUnitValue());
+        assertEquals(43, core.getMaxUnitValue());
+        assertEquals(30, core.getCurrentUnitValue());
+        assertEquals(1000.0, core.getCurrentValue(), 0);
+    }
+
+    private static String label(Scale scale, long index) {
+        char[] chars = new char[Scale.MAX_LABEL_CHARS];
+        return new String(chars, 0, scale.format(index, chars));
+    }
+}
@@ -0,0 +1,72 @@
+package com.meitu.lyz.myapplicationproject.widget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link TickLabelLayout}的可见范围及重叠剔除测试
+ */
+public class TickLabelLayoutTest {
+
+    private RulerCore mCore;
+    private final TickLabelLayout mLayout = new TickLabelLayout();
+    private float mLabelWidth = 20;
+    private final TickLabelLayout.Measurer mMeasurer = new TickLabelLayout.Measurer() {
+        @Override
+        public float measure(long unitValue) {
+            return mLabelWidth;
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mCore = new RulerCore();
+        mCore.setUnitExponent(-1);
+        mCore.setMinValue(0);
+        mCore.setMaxValue(100);
+        mCore.setCurrentValue(50);
+        mCore.setLineMargin(10);
+        mCore.setLength(1000);
+        mCore.setTextInterval(10);
+    }
+
+    @Test
+    public void labelsEveryTextIntervalExceptCenter() {
+        int count = mLayout.layout(mCore, mMeasurer, 40, 0, 0);
+        //450-549之间每10个刻度一个，450完全透明，500被中间文字遮挡
+        assertEquals(8, count);
+        assertEquals(460, mLayout.getUnitValue(0));
+        assertEquals(100, mLayout.getXY(0));
+        assertEquals(540, mLayout.getUnitValue(count - 1));
+        for (int i = 0; i < count; i++) {
+            assertTrue(mLayout.getUnitValue(i) != 500);
+            assertEquals(mCore.alphaAt(mLayout.getXY(i)), mLayout.getAlpha(i));
+        }
+    }
+
+    @Test
+    public void labelsStopAtBounds() {
+        mCore.setCurrentUnitValue(20);
+        mCore.scroll(3);
+        int count = mLayout.layout(mCore, mMeasurer, 40, 0, 0);
+        assertEquals(0, mLayout.getUnitValue(0));
+        assertEquals(297, mLayout.getXY(0));
+        //0-60，20被中间文字遮挡
+        assertEquals(6, count);
+        assertEquals(60, mLayout.getUnitValue(count - 1));
+    }
+
+    @Test
+    public void overlappingLabelsAreCulled() {
+        //每个刻度一个文字，文字宽度超过刻度间距时只保留不重叠的文字
+        mCore.setTextInterval(1);
+        mLabelWidth = 25;
+        int count = mLayout.layout(mCore, mMeasurer, 40, 0, 0);
+        for (int i = 1; i < count; i++)
+            assertTrue(mLayout.getXY(i) - mLayout.getXY(i - 1) >= 25);
+        assertTrue(count > 0 && count < mCore.getLineItems() / 2);
+    }
+}